@@ -0,0 +1,133 @@
+package com.gustavo.cancunbooking.controllers;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.gustavo.cancunbooking.controllers.advice.ApplicationControllerAdvice;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.RoomRepository;
+import com.gustavo.cancunbooking.services.ReservationIdempotencyService;
+import com.gustavo.cancunbooking.services.ReservationService;
+import com.gustavo.cancunbooking.services.RoomAvailabilityServiceImpl;
+import com.gustavo.cancunbooking.services.RoomOccupancyIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * The blocking and the asynchronous availability endpoints going through the Spring MVC dispatcher, with every
+ * check answered by the occupancy index. A single benchmark thread is used, so the score is the throughput of one
+ * core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class AvailabilityEndpointBenchmark {
+
+    private static final int ROOMS = 500;
+    private static final int QUERIES = 1024;
+
+    private ExecutorService availabilityExecutor;
+    private MockMvc mockMvc;
+    private byte[][] requestBodies;
+    private int query;
+
+    @Setup
+    public void setUp() {
+        // without the Spring Boot logging setup Logback logs every dispatch at debug level
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        Clock clock = Clock.systemDefaultZone();
+        LocalDate today = LocalDate.now(clock);
+        RoomRepository roomRepository = Mockito.mock(RoomRepository.class);
+        ReservationRepository reservationRepository = Mockito.mock(ReservationRepository.class);
+        RoomOccupancyIndex roomOccupancyIndex = new RoomOccupancyIndex(reservationRepository, roomRepository, clock);
+        availabilityExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        var roomAvailabilityService = new RoomAvailabilityServiceImpl(roomOccupancyIndex, reservationRepository,
+                roomRepository, availabilityExecutor, clock, new SimpleMeterRegistry());
+
+        Random random = new Random(42);
+        for (long roomId = 1; roomId <= ROOMS; roomId++) {
+            roomOccupancyIndex.registerRoom(roomId);
+            int day = 1 + random.nextInt(3);
+            while (day < 30) {
+                int length = 1 + random.nextInt(3);
+                roomOccupancyIndex.occupy(roomId, today.plusDays(day), today.plusDays(day + length - 1));
+                day += length + random.nextInt(3);
+            }
+        }
+
+        requestBodies = new byte[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            LocalDate startDate = today.plusDays(1 + random.nextInt(30));
+            LocalDate endDate = startDate.plusDays(random.nextInt(3));
+            requestBodies[i] = ("{\"startDate\":\"" + startDate + "\",\"endDate\":\"" + endDate
+                    + "\",\"roomId\":" + (1 + random.nextInt(ROOMS)) + "}").getBytes(StandardCharsets.UTF_8);
+        }
+
+        var controller = new ReservationController(Mockito.mock(ReservationService.class), roomAvailabilityService,
+                Mockito.mock(ReservationIdempotencyService.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new ApplicationControllerAdvice())
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build()))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        availabilityExecutor.close();
+    }
+
+    @Benchmark
+    public MvcResult checkAvailability() throws Exception {
+        return mockMvc.perform(post("/api/v1/reservation/check-availability")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(nextRequestBody()))
+                .andReturn();
+    }
+
+    @Benchmark
+    public MvcResult checkAvailabilityAsync() throws Exception {
+        MvcResult asyncResult = mockMvc.perform(post("/api/v1/reservation/check-availability-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(nextRequestBody()))
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(asyncResult)).andReturn();
+    }
+
+    private byte[] nextRequestBody() {
+        return requestBodies[query++ & (QUERIES - 1)];
+    }
+}
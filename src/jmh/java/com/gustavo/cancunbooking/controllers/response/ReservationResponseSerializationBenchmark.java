@@ -0,0 +1,46 @@
+package com.gustavo.cancunbooking.controllers.response;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes the reservation response the same way the Spring MVC message converter does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationResponseSerializationBenchmark {
+
+    private ObjectWriter objectWriter;
+    private ReservationSuccessResponseDTO response;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        objectWriter = objectMapper.writerFor(ReservationSuccessResponseDTO.class);
+        response = new ReservationSuccessResponseDTO(1L, 1L, 1L, LocalDate.of(2023, 1, 10), LocalDate.of(2023, 1, 12));
+    }
+
+    @Benchmark
+    public byte[] serializeReservationSuccessResponse() throws JsonProcessingException {
+        return objectWriter.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,65 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.controllers.request.ReservationRequestDTO;
+import com.gustavo.cancunbooking.repositories.ReservationArchiveRepository;
+import com.gustavo.cancunbooking.repositories.ReservationEventRepository;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.RoomRepository;
+import com.gustavo.cancunbooking.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The validation chain every new reservation goes through before the room is claimed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationValidationBenchmark {
+
+    private ReservationServiceImpl reservationService;
+    private ReservationRequestDTO reservationRequest;
+
+    @Setup
+    public void setUp() {
+        Clock clock = Clock.fixed(Instant.parse("2023-01-01T10:30:00.00Z"), ZoneOffset.UTC);
+        ReservationRepository reservationRepository = Mockito.mock(ReservationRepository.class);
+        RoomRepository roomRepository = Mockito.mock(RoomRepository.class);
+        RoomOccupancyIndex roomOccupancyIndex = new RoomOccupancyIndex(reservationRepository, roomRepository, clock);
+        reservationService = new ReservationServiceImpl(reservationRepository, roomRepository,
+                Mockito.mock(UserRepository.class), Mockito.mock(ReservationEventRepository.class), new RoomBookingCoordinator(roomOccupancyIndex,
+                        new AvailabilityChangePublisher(Runnable::run, new SimpleMeterRegistry(), 16),
+                        new OccupancyStatistics(reservationRepository, Mockito.mock(ReservationArchiveRepository.class), 100, true)),
+                new ConflictRetryExecutor(Mockito.mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 3, Duration.ZERO, 2, Duration.ZERO),
+                new ReservationMetrics(new SimpleMeterRegistry(), false), clock);
+
+        reservationRequest = new ReservationRequestDTO(1L, 1L, LocalDate.of(2023, 1, 10), LocalDate.of(2023, 1, 12));
+    }
+
+    @Benchmark
+    public ReservationRequestDTO validateNewReservationRequest() {
+        reservationService.validateNewReservationRequest(reservationRequest);
+        return reservationRequest;
+    }
+}
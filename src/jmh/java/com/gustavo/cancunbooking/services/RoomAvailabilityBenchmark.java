@@ -0,0 +1,84 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.controllers.response.RoomAvailabilityResponseDTO;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.RoomRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Availability checks against a hotel where most rooms are booked for most of the bookable window.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoomAvailabilityBenchmark {
+
+    private static final LocalDate TODAY = LocalDate.of(2023, 1, 1);
+    private static final int QUERIES = 1024;
+
+    @Param({"500"})
+    private int rooms;
+
+    private RoomAvailabilityServiceImpl roomAvailabilityService;
+    private Long[] queryRoomIds;
+    private LocalDate[] queryStartDates;
+    private LocalDate[] queryEndDates;
+    private int query;
+
+    @Setup
+    public void setUp() {
+        Clock clock = Clock.fixed(Instant.parse("2023-01-01T10:30:00.00Z"), ZoneOffset.UTC);
+        RoomRepository roomRepository = Mockito.mock(RoomRepository.class);
+        ReservationRepository reservationRepository = Mockito.mock(ReservationRepository.class);
+        RoomOccupancyIndex roomOccupancyIndex = new RoomOccupancyIndex(reservationRepository, roomRepository, clock);
+        roomAvailabilityService = new RoomAvailabilityServiceImpl(roomOccupancyIndex, reservationRepository, roomRepository, Runnable::run, clock, new SimpleMeterRegistry());
+
+        Random random = new Random(42);
+        for (long roomId = 1; roomId <= rooms; roomId++) {
+            roomOccupancyIndex.registerRoom(roomId);
+            int day = 1 + random.nextInt(3);
+            while (day < ReservationServiceImpl.MAXIMUM_FUTURE_DAYS_ALLOWED) {
+                int length = 1 + random.nextInt(ReservationServiceImpl.MAXIMUM_RESERVATION_DAS_ALLOWED);
+                roomOccupancyIndex.occupy(roomId, TODAY.plusDays(day), TODAY.plusDays(day + length - 1));
+                day += length + random.nextInt(3);
+            }
+        }
+
+        queryRoomIds = new Long[QUERIES];
+        queryStartDates = new LocalDate[QUERIES];
+        queryEndDates = new LocalDate[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queryRoomIds[i] = 1L + random.nextInt(rooms);
+            queryStartDates[i] = TODAY.plusDays(1 + random.nextInt(ReservationServiceImpl.MAXIMUM_FUTURE_DAYS_ALLOWED));
+            queryEndDates[i] = queryStartDates[i].plusDays(random.nextInt(ReservationServiceImpl.MAXIMUM_RESERVATION_DAS_ALLOWED));
+        }
+    }
+
+    @Benchmark
+    public RoomAvailabilityResponseDTO getRoomAvailability() {
+        int i = query++ & (QUERIES - 1);
+        return roomAvailabilityService.getRoomAvailability(queryStartDates[i], queryEndDates[i], queryRoomIds[i]);
+    }
+}
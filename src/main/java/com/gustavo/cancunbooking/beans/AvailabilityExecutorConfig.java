@@ -0,0 +1,22 @@
+package com.gustavo.cancunbooking.beans;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class AvailabilityExecutorConfig {
+
+    public static final String AVAILABILITY_EXECUTOR = "availabilityExecutor";
+
+    // availability checks the occupancy index cannot answer wait for the database on virtual threads, so they
+    // never hold a request thread or a platform thread while parked, and they read from the primary when the
+    // request that handed them over has to
+    @Bean(name = AVAILABILITY_EXECUTOR, destroyMethod = "close")
+    public ExecutorService availabilityExecutor() {
+        return new RouteAwareExecutorService(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("availability-", 0).factory()));
+    }
+
+}
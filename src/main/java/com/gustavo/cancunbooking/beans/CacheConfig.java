@@ -0,0 +1,29 @@
+package com.gustavo.cancunbooking.beans;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String ROOMS_CACHE = "rooms";
+    public static final String USERS_CACHE = "users";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${cancunbooking.cache.rooms.spec}") String roomsCacheSpec,
+            @Value("${cancunbooking.cache.users.spec}") String usersCacheSpec
+    ) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(ROOMS_CACHE, Caffeine.from(roomsCacheSpec).recordStats().build());
+        cacheManager.registerCustomCache(USERS_CACHE, Caffeine.from(usersCacheSpec).recordStats().build());
+        return cacheManager;
+    }
+
+}
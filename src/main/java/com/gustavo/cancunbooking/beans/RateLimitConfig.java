@@ -0,0 +1,65 @@
+package com.gustavo.cancunbooking.beans;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Rate limits the availability checks and the bookings, the endpoints that go to the database on every call.
+ * The asynchronous check and the batch booking share the buckets of the check and the booking, and a batch takes
+ * one token per reservation in it.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "cancunbooking.rate-limit", name = "enabled", havingValue = "true")
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+    private final String clientHeader;
+    private final Duration refillPeriod;
+    private final long maximumClients;
+    private final Duration idleTimeout;
+    private final long availabilityClientCapacity;
+    private final long availabilityEndpointCapacity;
+    private final long bookingClientCapacity;
+    private final long bookingEndpointCapacity;
+
+    public RateLimitConfig(
+            MeterRegistry meterRegistry,
+            @Value("${cancunbooking.rate-limit.client-header:}") String clientHeader,
+            @Value("${cancunbooking.rate-limit.refill-period:PT1S}") Duration refillPeriod,
+            @Value("${cancunbooking.rate-limit.maximum-clients:100000}") long maximumClients,
+            @Value("${cancunbooking.rate-limit.idle-timeout:PT10M}") Duration idleTimeout,
+            @Value("${cancunbooking.rate-limit.check-availability.client-capacity:50}") long availabilityClientCapacity,
+            @Value("${cancunbooking.rate-limit.check-availability.endpoint-capacity:2000}") long availabilityEndpointCapacity,
+            @Value("${cancunbooking.rate-limit.new.client-capacity:10}") long bookingClientCapacity,
+            @Value("${cancunbooking.rate-limit.new.endpoint-capacity:200}") long bookingEndpointCapacity
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.clientHeader = clientHeader;
+        this.refillPeriod = refillPeriod;
+        this.maximumClients = maximumClients;
+        this.idleTimeout = idleTimeout;
+        this.availabilityClientCapacity = availabilityClientCapacity;
+        this.availabilityEndpointCapacity = availabilityEndpointCapacity;
+        this.bookingClientCapacity = bookingClientCapacity;
+        this.bookingEndpointCapacity = bookingEndpointCapacity;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor("check-availability", availabilityClientCapacity, availabilityEndpointCapacity))
+                .addPathPatterns("/api/v1/reservation/check-availability", "/api/v1/reservation/check-availability-async");
+        registry.addInterceptor(rateLimitInterceptor("new", bookingClientCapacity, bookingEndpointCapacity))
+                .addPathPatterns("/api/v1/reservation/new", "/api/v1/reservation/new-batch");
+    }
+
+    private RateLimitInterceptor rateLimitInterceptor(String endpoint, long clientCapacity, long endpointCapacity) {
+        return new RateLimitInterceptor(endpoint, clientHeader, clientCapacity, endpointCapacity, refillPeriod,
+                maximumClients, idleTimeout, meterRegistry, System::nanoTime);
+    }
+}
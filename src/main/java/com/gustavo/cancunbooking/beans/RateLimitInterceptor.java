@@ -0,0 +1,128 @@
+package com.gustavo.cancunbooking.beans;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gustavo.cancunbooking.exceptions.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Admits requests to one endpoint only while both the client's bucket and the endpoint's bucket have a token, so a
+ * single client cannot use more than its share and all clients together cannot exhaust the database pool. Clients
+ * are told apart by the client header when one is configured and sent, and by their address otherwise. Client
+ * buckets are kept in a bounded cache that evicts the least recently used ones and those idle for longer than the
+ * idle timeout. An evicted bucket comes back full, so the idle timeout should not be shorter than the refill period.
+ * <p>
+ * Every request takes one token. A handler whose request books several reservations takes one more per extra
+ * reservation with {@link #acquireAdditional(HttpServletRequest, int)}. A batch larger than the bucket is admitted
+ * when the bucket is full and leaves it in debt, so the client waits until the whole batch has been paid for.
+ * <p>
+ * A rejected request fails with a {@link RateLimitExceededException}, answered with 429 and a Retry-After header.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    static final String REQUESTS_METRIC = "cancunbooking.ratelimit.requests";
+    static final String CLIENTS_METRIC = "cancunbooking.ratelimit.clients";
+
+    private static final long NANOS_PER_SECOND = Duration.ofSeconds(1).toNanos();
+    private static final String INTERCEPTOR_ATTRIBUTE = RateLimitInterceptor.class.getName();
+
+    private final String clientHeader;
+    private final long clientCapacity;
+    private final Duration refillPeriod;
+    private final LongSupplier nanoTime;
+    private final TokenBucket endpointBucket;
+    private final Cache<String, TokenBucket> clientBuckets;
+
+    private final Counter allowedCounter;
+    private final Counter clientThrottledCounter;
+    private final Counter endpointThrottledCounter;
+
+    public RateLimitInterceptor(String endpoint, String clientHeader, long clientCapacity, long endpointCapacity, Duration refillPeriod,
+                                long maximumClients, Duration idleTimeout, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.clientHeader = clientHeader;
+        this.clientCapacity = clientCapacity;
+        this.refillPeriod = refillPeriod;
+        this.nanoTime = nanoTime;
+        this.endpointBucket = new TokenBucket(endpointCapacity, refillPeriod, nanoTime.getAsLong());
+        this.clientBuckets = Caffeine.newBuilder()
+                .maximumSize(maximumClients)
+                .expireAfterAccess(idleTimeout)
+                .ticker(nanoTime::getAsLong)
+                .build();
+
+        this.allowedCounter = requestsCounter(meterRegistry, endpoint, "allowed");
+        this.clientThrottledCounter = requestsCounter(meterRegistry, endpoint, "client-throttled");
+        this.endpointThrottledCounter = requestsCounter(meterRegistry, endpoint, "endpoint-throttled");
+        Gauge.builder(CLIENTS_METRIC, clientBuckets, Cache::estimatedSize)
+                .description("Clients with a rate limit bucket")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // an asynchronous request is dispatched again to write its result, it was already admitted the first time
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+
+        acquire(request, 1, false);
+        allowedCounter.increment();
+        request.setAttribute(INTERCEPTOR_ATTRIBUTE, this);
+        return true;
+    }
+
+    /**
+     * Takes more tokens for a request that was already admitted, does nothing when the request was not rate limited.
+     */
+    public static void acquireAdditional(HttpServletRequest request, int tokens) {
+        if (tokens > 0 && request.getAttribute(INTERCEPTOR_ATTRIBUTE) instanceof RateLimitInterceptor rateLimitInterceptor) {
+            rateLimitInterceptor.acquire(request, tokens, true);
+        }
+    }
+
+    private void acquire(HttpServletRequest request, int tokens, boolean additional) {
+        long nowNanos = nanoTime.getAsLong();
+        TokenBucket clientBucket = clientBuckets.get(clientKey(request),
+                client -> new TokenBucket(clientCapacity, refillPeriod, nowNanos));
+
+        long waitNanos = additional ? clientBucket.tryAcquireMore(nowNanos, tokens) : clientBucket.tryAcquire(nowNanos, tokens);
+        if (waitNanos > 0) {
+            clientThrottledCounter.increment();
+            throw new RateLimitExceededException("Too many requests from this client", toRetryAfterSeconds(waitNanos));
+        }
+
+        waitNanos = additional ? endpointBucket.tryAcquireMore(nowNanos, tokens) : endpointBucket.tryAcquire(nowNanos, tokens);
+        if (waitNanos > 0) {
+            clientBucket.refund(tokens);
+            endpointThrottledCounter.increment();
+            throw new RateLimitExceededException("Too many requests, the service is busy", toRetryAfterSeconds(waitNanos));
+        }
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        String client = clientHeader.isEmpty() ? null : request.getHeader(clientHeader);
+        return client == null || client.isBlank() ? request.getRemoteAddr() : clientHeader + ":" + client;
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return (waitNanos - 1) / NANOS_PER_SECOND + 1;
+    }
+
+    private static Counter requestsCounter(MeterRegistry meterRegistry, String endpoint, String outcome) {
+        return Counter.builder(REQUESTS_METRIC)
+                .description("Requests admitted or throttled by the rate limiter")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
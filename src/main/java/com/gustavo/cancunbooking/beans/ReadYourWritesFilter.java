@@ -0,0 +1,47 @@
+package com.gustavo.cancunbooking.beans;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Reads of a client that wrote within the staleness window go to the primary, so a client checking availability
+ * right after a booking sees it even when the replica lags behind. Clients are told apart by their address, and
+ * the window should be set above the usual replication lag.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesFilter(Duration stalenessWindow, long maximumClients) {
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maximumClients)
+                .expireAfterWrite(stalenessWindow)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String client = request.getRemoteAddr();
+        if (recentWriters.getIfPresent(client) != null) {
+            ReplicaRoutingDataSource.requirePrimary();
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (ReplicaRoutingDataSource.hasWritten()) {
+                recentWriters.put(client, Boolean.TRUE);
+            }
+            ReplicaRoutingDataSource.clear();
+        }
+    }
+}
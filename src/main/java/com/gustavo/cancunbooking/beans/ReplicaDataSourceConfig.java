@@ -0,0 +1,83 @@
+package com.gustavo.cancunbooking.beans;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Enabled by setting cancunbooking.datasource.replica.url. Writes and read-write transactions keep using the
+ * spring.datasource pool, while {@code @Transactional(readOnly = true)} paths are served by the replica pool.
+ * <p>
+ * The replica pool starts from the driver properties of the primary, such as the cursor fetch the export relies on
+ * and the prepared statement cache, and cancunbooking.datasource.replica.hikari.data-source-properties overrides them.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "cancunbooking.datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+
+    public static final String PRIMARY_DATA_SOURCE = "primaryDataSource";
+    public static final String REPLICA_DATA_SOURCE = "replicaDataSource";
+
+    @Bean(name = PRIMARY_DATA_SOURCE)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(name = REPLICA_DATA_SOURCE)
+    @ConfigurationProperties("cancunbooking.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Qualifier(PRIMARY_DATA_SOURCE) HikariDataSource primaryDataSource,
+            @Value("${cancunbooking.datasource.replica.url}") String url,
+            @Value("${cancunbooking.datasource.replica.username:}") String username,
+            @Value("${cancunbooking.datasource.replica.password:}") String password
+    ) {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        dataSource.setDataSourceProperties(primaryDataSource.getDataSourceProperties());
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier(PRIMARY_DATA_SOURCE) DataSource primaryDataSource,
+            @Qualifier(REPLICA_DATA_SOURCE) DataSource replicaDataSource
+    ) {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.Route.PRIMARY, primaryDataSource,
+                ReplicaRoutingDataSource.Route.REPLICA, replicaDataSource));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cancunbooking.datasource.replica", name = "read-your-writes", havingValue = "true", matchIfMissing = true)
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${cancunbooking.datasource.replica.staleness-window:PT2S}") Duration stalenessWindow,
+            @Value("${cancunbooking.datasource.replica.maximum-tracked-clients:100000}") long maximumClients
+    ) {
+        return new ReadYourWritesFilter(stalenessWindow, maximumClients);
+    }
+}
@@ -0,0 +1,67 @@
+package com.gustavo.cancunbooking.beans;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends the connections of read-only transactions to the replica and every other connection to the primary.
+ * The read-only flag of a transaction is only set once it has begun, so this data source has to be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} that looks the connection up when the
+ * first statement runs.
+ * <p>
+ * A thread can require the primary for its reads, which is how {@link ReadYourWritesFilter} lets a client read
+ * its own writes while the replica catches up. Threads that used the primary inside a read-write transaction are
+ * flagged, so the filter knows the client wrote something. Both flags belong to the request thread, so work
+ * handed to another thread is wrapped with {@link #withCurrentRoute(Runnable)} to keep reading from the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> WRITTEN = new ThreadLocal<>();
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && PRIMARY_REQUIRED.get() == null) {
+            return Route.REPLICA;
+        }
+
+        if (TransactionSynchronizationManager.isActualTransactionActive() && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            WRITTEN.set(Boolean.TRUE);
+        }
+        return Route.PRIMARY;
+    }
+
+    /**
+     * Returns a task that requires the primary on the thread running it when the calling thread does.
+     */
+    public static Runnable withCurrentRoute(Runnable task) {
+        if (PRIMARY_REQUIRED.get() == null) {
+            return task;
+        }
+
+        return () -> {
+            Boolean primaryRequired = PRIMARY_REQUIRED.get();
+            PRIMARY_REQUIRED.set(Boolean.TRUE);
+            try {
+                task.run();
+            } finally {
+                PRIMARY_REQUIRED.set(primaryRequired);
+            }
+        };
+    }
+
+    static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    static boolean hasWritten() {
+        return WRITTEN.get() != null;
+    }
+
+    static void clear() {
+        PRIMARY_REQUIRED.remove();
+        WRITTEN.remove();
+    }
+}
@@ -0,0 +1,49 @@
+package com.gustavo.cancunbooking.beans;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks on the delegate with the replica route of the thread that submitted them, so a client that must read
+ * from the primary keeps doing so when its work continues on another thread.
+ */
+public class RouteAwareExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+
+    public RouteAwareExecutorService(ExecutorService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(ReplicaRoutingDataSource.withCurrentRoute(command));
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,62 @@
+package com.gustavo.cancunbooking.beans;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bucket of {@code capacity} tokens refilled evenly over the refill period. Instead of a token count the bucket
+ * keeps the time at which it will be full again, so taking tokens is a single compare-and-set and no timer is
+ * needed to refill it.
+ */
+final class TokenBucket {
+
+    private final long tokenNanos;
+    private final long capacity;
+    private final long capacityNanos;
+    private final AtomicLong fullAtNanos;
+
+    TokenBucket(long capacity, Duration refillPeriod, long nowNanos) {
+        this.tokenNanos = Math.max(refillPeriod.toNanos() / capacity, 1);
+        this.capacity = capacity;
+        this.capacityNanos = tokenNanos * capacity;
+        this.fullAtNanos = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes the tokens and returns 0, or returns the nanoseconds until they are available. More tokens than the
+     * capacity are taken once the bucket is full, leaving it in debt until they have been refilled.
+     */
+    long tryAcquire(long nowNanos, long tokens) {
+        return tryAcquire(nowNanos, tokens, Math.min(tokens, capacity));
+    }
+
+    /**
+     * Takes more tokens for a request that already took one, so the bucket only has to hold what would be left of
+     * it once full.
+     */
+    long tryAcquireMore(long nowNanos, long tokens) {
+        return tryAcquire(nowNanos, tokens, Math.min(tokens, capacity - 1));
+    }
+
+    private long tryAcquire(long nowNanos, long tokens, long requiredTokens) {
+        long requiredNanos = requiredTokens * tokenNanos;
+        while (true) {
+            long fullAt = fullAtNanos.get();
+            long refilledAt = Math.max(fullAt, nowNanos);
+            long waitNanos = refilledAt + requiredNanos - nowNanos - capacityNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (fullAtNanos.compareAndSet(fullAt, refilledAt + tokens * tokenNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back tokens taken by {@link #tryAcquire(long, long)} or {@link #tryAcquireMore(long, long)}, a bucket that refilled since then stays full.
+     */
+    void refund(long tokens) {
+        fullAtNanos.addAndGet(-tokens * tokenNanos);
+    }
+}
@@ -0,0 +1,25 @@
+package com.gustavo.cancunbooking.controllers;
+
+import com.gustavo.cancunbooking.controllers.response.MonthlyOccupancyResponseDTO;
+import com.gustavo.cancunbooking.services.OccupancyStatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+
+@RestController
+@RequestMapping("api/v1/reservation/statistics")
+public class OccupancyStatisticsController {
+    private final OccupancyStatisticsService occupancyStatisticsService;
+
+    @Autowired
+    public OccupancyStatisticsController(OccupancyStatisticsService occupancyStatisticsService) {
+        this.occupancyStatisticsService = occupancyStatisticsService;
+    }
+
+    @GetMapping("occupancy/{month}")
+    public ResponseEntity<MonthlyOccupancyResponseDTO> getMonthlyOccupancy(@PathVariable YearMonth month) {
+        return ResponseEntity.ok(occupancyStatisticsService.getMonthlyOccupancy(month));
+    }
+}
@@ -0,0 +1,46 @@
+package com.gustavo.cancunbooking.controllers;
+
+import com.gustavo.cancunbooking.controllers.response.ArchivedReservationResponseDTO;
+import com.gustavo.cancunbooking.services.ReservationArchiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("api/v1/reservation/archive")
+public class ReservationArchiveController {
+    private final ReservationArchiveService reservationArchiveService;
+
+    @Autowired
+    public ReservationArchiveController(ReservationArchiveService reservationArchiveService) {
+        this.reservationArchiveService = reservationArchiveService;
+    }
+
+    @GetMapping("{reservationId}")
+    public ResponseEntity<ArchivedReservationResponseDTO> getArchivedReservation(@PathVariable Long reservationId) {
+        return ResponseEntity.ok(reservationArchiveService.getArchivedReservation(reservationId));
+    }
+
+    @GetMapping("room/{roomId}")
+    public ResponseEntity<List<ArchivedReservationResponseDTO>> findArchivedReservationsOfRoom(
+            @PathVariable Long roomId,
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        return ResponseEntity.ok(reservationArchiveService.findArchivedReservationsOfRoom(roomId, startDate, endDate, page, size));
+    }
+
+    @GetMapping("user/{userId}")
+    public ResponseEntity<List<ArchivedReservationResponseDTO>> findArchivedReservationsOfUser(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        return ResponseEntity.ok(reservationArchiveService.findArchivedReservationsOfUser(userId, page, size));
+    }
+}
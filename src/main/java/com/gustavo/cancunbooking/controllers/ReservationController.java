@@ -1,12 +1,22 @@
 package com.gustavo.cancunbooking.controllers;
 
+import com.gustavo.cancunbooking.beans.RateLimitInterceptor;
+import com.gustavo.cancunbooking.controllers.request.AvailabilitySearchRequestDTO;
+import com.gustavo.cancunbooking.controllers.request.NextAvailableStayRequestDTO;
+import com.gustavo.cancunbooking.controllers.request.ReservationBatchRequestDTO;
 import com.gustavo.cancunbooking.controllers.request.ReservationRequestDTO;
 import com.gustavo.cancunbooking.controllers.request.ReservationUpdateRequestDTO;
 import com.gustavo.cancunbooking.controllers.request.RoomAvailabilityRequestDTO;
+import com.gustavo.cancunbooking.controllers.response.NextAvailableStayResponseDTO;
+import com.gustavo.cancunbooking.controllers.response.ReservationBatchResultDTO;
 import com.gustavo.cancunbooking.controllers.response.ReservationSuccessResponseDTO;
 import com.gustavo.cancunbooking.controllers.response.RoomAvailabilityResponseDTO;
+import com.gustavo.cancunbooking.controllers.response.RoomAvailabilitySearchResultDTO;
+import com.gustavo.cancunbooking.services.ReservationIdempotencyService;
+import com.gustavo.cancunbooking.services.ReservationIdempotencyService.IdempotentReservation;
 import com.gustavo.cancunbooking.services.ReservationService;
 import com.gustavo.cancunbooking.services.RoomAvailabilityService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -15,23 +25,55 @@ import org.springframework.web.bind.annotation.*;
 
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("api/v1/reservation")
 public class
 ReservationController {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final ReservationService reservationService;
     private final RoomAvailabilityService roomAvailabilityService;
+    private final ReservationIdempotencyService reservationIdempotencyService;
 
     @Autowired
-    public ReservationController(ReservationService reservationService, RoomAvailabilityService roomAvailabilityService) {
+    public ReservationController(
+            ReservationService reservationService,
+            RoomAvailabilityService roomAvailabilityService,
+            ReservationIdempotencyService reservationIdempotencyService
+    ) {
         this.reservationService = reservationService;
         this.roomAvailabilityService = roomAvailabilityService;
+        this.reservationIdempotencyService = reservationIdempotencyService;
     }
 
     @PostMapping("new")
-    public ResponseEntity<ReservationSuccessResponseDTO> placeNewReservation(@RequestBody @Valid ReservationRequestDTO reservationRequest) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.placeReservation(reservationRequest));
+    public ResponseEntity<ReservationSuccessResponseDTO> placeNewReservation(
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody @Valid ReservationRequestDTO reservationRequest
+    ) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.placeReservation(reservationRequest));
+        }
+
+        IdempotentReservation reservation = reservationIdempotencyService.placeReservation(idempotencyKey, reservationRequest);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(reservation.isReplayed()))
+                .body(reservation.response());
+    }
+
+    @PostMapping("new-batch")
+    public ResponseEntity<List<ReservationBatchResultDTO>> placeNewReservations(
+            @RequestBody @Valid ReservationBatchRequestDTO reservationBatchRequest,
+            HttpServletRequest request
+    ) {
+        // the request took one token of the booking rate limit, every other reservation in the batch takes one more
+        RateLimitInterceptor.acquireAdditional(request, reservationBatchRequest.getReservations().size() - 1);
+        return ResponseEntity.ok(reservationService.placeReservations(reservationBatchRequest));
     }
 
     @PostMapping("update")
@@ -41,8 +83,33 @@ ReservationController {
 
     @PostMapping("check-availability")
     public ResponseEntity<RoomAvailabilityResponseDTO> checkAvailability(@RequestBody @Valid RoomAvailabilityRequestDTO roomAvailabilityRequest)  {
+        LocalDate endDate = Optional.ofNullable(roomAvailabilityRequest.getEndDate())
+                .orElse(roomAvailabilityRequest.getStartDate());
         return ResponseEntity.ok(roomAvailabilityService
-                .getRoomAvailability(roomAvailabilityRequest.getStartDate(), roomAvailabilityRequest.getRoomId())
+                .getRoomAvailability(roomAvailabilityRequest.getStartDate(), endDate, roomAvailabilityRequest.getRoomId())
+        );
+    }
+
+    @PostMapping("check-availability-async")
+    public CompletableFuture<ResponseEntity<RoomAvailabilityResponseDTO>> checkAvailabilityAsync(@RequestBody @Valid RoomAvailabilityRequestDTO roomAvailabilityRequest) {
+        LocalDate endDate = Optional.ofNullable(roomAvailabilityRequest.getEndDate())
+                .orElse(roomAvailabilityRequest.getStartDate());
+        return roomAvailabilityService
+                .getRoomAvailabilityAsync(roomAvailabilityRequest.getStartDate(), endDate, roomAvailabilityRequest.getRoomId())
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping("search-availability")
+    public ResponseEntity<List<RoomAvailabilitySearchResultDTO>> searchAvailability(@RequestBody @Valid AvailabilitySearchRequestDTO availabilitySearchRequest) {
+        return ResponseEntity.ok(roomAvailabilityService
+                .searchAvailability(availabilitySearchRequest.getStartDate(), availabilitySearchRequest.getEndDate())
+        );
+    }
+
+    @PostMapping("next-available-stay")
+    public ResponseEntity<NextAvailableStayResponseDTO> findNextAvailableStay(@RequestBody @Valid NextAvailableStayRequestDTO nextAvailableStayRequest) {
+        return ResponseEntity.ok(roomAvailabilityService.findNextAvailableStay(
+                nextAvailableStayRequest.getRoomId(), nextAvailableStayRequest.getFromDate(), nextAvailableStayRequest.getDays())
         );
     }
 
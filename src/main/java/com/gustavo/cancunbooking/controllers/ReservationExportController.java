@@ -0,0 +1,55 @@
+package com.gustavo.cancunbooking.controllers;
+
+import com.gustavo.cancunbooking.model.ReservationStatusEnum;
+import com.gustavo.cancunbooking.services.ReservationExportService;
+import com.gustavo.cancunbooking.services.ReservationExportService.Format;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Set;
+
+@RestController
+@RequestMapping("api/v1/reservation/export")
+public class ReservationExportController {
+    private final ReservationExportService reservationExportService;
+    private final Duration timeout;
+
+    @Autowired
+    public ReservationExportController(
+            ReservationExportService reservationExportService,
+            @Value("${cancunbooking.export.timeout:PT30M}") Duration timeout
+    ) {
+        this.reservationExportService = reservationExportService;
+        this.timeout = timeout;
+    }
+
+    // the rows are written on an async request thread while they are read, with a timeout of its own so other
+    // async requests keep the default one
+    @GetMapping
+    public WebAsyncTask<Void> exportReservations(
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate,
+            @RequestParam(required = false) Set<ReservationStatusEnum> status,
+            @RequestParam(defaultValue = "NDJSON") Format format,
+            HttpServletResponse response
+    ) {
+        // checked before the response starts, an error while streaming can only cut the response short
+        reservationExportService.validatePeriod(startDate, endDate);
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("reservations-" + startDate + "-" + endDate + "." + format.getExtension())
+                .build().toString());
+        return new WebAsyncTask<>(timeout.toMillis(), () -> {
+            reservationExportService.exportReservations(startDate, endDate, status, format, response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+}
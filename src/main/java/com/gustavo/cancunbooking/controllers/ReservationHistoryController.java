@@ -0,0 +1,30 @@
+package com.gustavo.cancunbooking.controllers;
+
+import com.gustavo.cancunbooking.controllers.response.ReservationHistoryPageDTO;
+import com.gustavo.cancunbooking.services.ReservationHistoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("api/v1/reservation/history")
+public class ReservationHistoryController {
+    private final ReservationHistoryService reservationHistoryService;
+
+    @Autowired
+    public ReservationHistoryController(ReservationHistoryService reservationHistoryService) {
+        this.reservationHistoryService = reservationHistoryService;
+    }
+
+    @GetMapping("user/{userId}")
+    public ResponseEntity<ReservationHistoryPageDTO> findReservationsOfUser(
+            @PathVariable Long userId,
+            @RequestParam(required = false) LocalDate afterStartDate,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        return ResponseEntity.ok(reservationHistoryService.findReservationsOfUser(userId, afterStartDate, afterId, size));
+    }
+}
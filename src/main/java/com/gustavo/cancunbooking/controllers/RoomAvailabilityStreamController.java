@@ -0,0 +1,47 @@
+package com.gustavo.cancunbooking.controllers;
+
+import com.gustavo.cancunbooking.services.AvailabilityChangePublisher;
+import com.gustavo.cancunbooking.services.AvailabilityChangePublisher.Subscription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Set;
+
+@RestController
+@RequestMapping("api/v1/reservation")
+public class RoomAvailabilityStreamController {
+    public static final String AVAILABILITY_EVENT_NAME = "availability";
+
+    private final AvailabilityChangePublisher availabilityChangePublisher;
+    private final Duration timeout;
+
+    @Autowired
+    public RoomAvailabilityStreamController(
+            AvailabilityChangePublisher availabilityChangePublisher,
+            @Value("${cancunbooking.availability-stream.timeout:PT30M}") Duration timeout
+    ) {
+        this.availabilityChangePublisher = availabilityChangePublisher;
+        this.timeout = timeout;
+    }
+
+    @GetMapping(path = "availability-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailabilityChanges(@RequestParam(required = false) Set<Long> roomIds) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscription subscription = availabilityChangePublisher.subscribe(roomIds == null ? Set.of() : roomIds,
+                change -> emitter.send(SseEmitter.event()
+                        .id(String.valueOf(change.getSequence()))
+                        .name(AVAILABILITY_EVENT_NAME)
+                        .data(change, MediaType.APPLICATION_JSON)));
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+        return emitter;
+    }
+}
@@ -1,6 +1,10 @@
 package com.gustavo.cancunbooking.controllers.advice;
 
+import com.gustavo.cancunbooking.exceptions.RateLimitExceededException;
+import com.gustavo.cancunbooking.exceptions.ReservationConflictException;
 import com.gustavo.cancunbooking.exceptions.ReservationException;
+import com.gustavo.cancunbooking.exceptions.StatisticsUnavailableException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -23,6 +27,26 @@ public class ApplicationControllerAdvice {
         return ResponseEntity.badRequest().body(new ErrorMessage(ex.getMessage()));
     }
 
+    @ExceptionHandler(ReservationConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<ErrorMessage> handleReservationConflictException(ReservationConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorMessage(ex.getMessage()));
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ResponseEntity<ErrorMessage> handleRateLimitExceededException(RateLimitExceededException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ErrorMessage(ex.getMessage()));
+    }
+
+    @ExceptionHandler(StatisticsUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<ErrorMessage> handleStatisticsUnavailableException(StatisticsUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ErrorMessage(ex.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<ErrorList> handleInvalidArgumentsException(MethodArgumentNotValidException ex) {
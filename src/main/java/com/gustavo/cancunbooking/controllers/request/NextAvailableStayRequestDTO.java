@@ -0,0 +1,25 @@
+package com.gustavo.cancunbooking.controllers.request;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NextAvailableStayRequestDTO {
+    @NotNull(message = "Room id cannot be null")
+    private Long roomId;
+    @Future(message = "From date cannot be in the past")
+    private LocalDate fromDate;
+    @NotNull(message = "Days cannot be null")
+    @Min(value = 1, message = "Days must be at least 1")
+    @Max(value = 64, message = "Days cannot be greater than 64")
+    private Integer days;
+}
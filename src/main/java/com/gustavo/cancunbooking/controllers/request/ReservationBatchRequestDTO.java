@@ -0,0 +1,24 @@
+package com.gustavo.cancunbooking.controllers.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationBatchRequestDTO {
+    public static final int MAXIMUM_BATCH_SIZE = 500;
+
+    @NotEmpty(message = "Reservations cannot be empty")
+    @Size(max = MAXIMUM_BATCH_SIZE, message = "A batch cannot have more than 500 reservations")
+    private List<@Valid ReservationRequestDTO> reservations;
+
+    // when true a single rejected reservation rejects the whole batch, otherwise the valid ones are placed
+    private boolean allOrNothing;
+}
@@ -15,6 +15,8 @@ public class RoomAvailabilityRequestDTO {
     @NotNull(message = "Start date cannot be null")
     @Future(message = "Start date cannot be in the past")
     private LocalDate startDate;
+    @Future(message = "End date cannot be in the past")
+    private LocalDate endDate;
     @NotNull(message = "Room id cannot be null")
     private Long roomId;
 }
@@ -0,0 +1,34 @@
+package com.gustavo.cancunbooking.controllers.response;
+
+import com.gustavo.cancunbooking.model.ReservationArchive;
+import com.gustavo.cancunbooking.model.ReservationStatusEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedReservationResponseDTO {
+
+    public ArchivedReservationResponseDTO(ReservationArchive reservationArchive) {
+        this.reservationId = reservationArchive.getId();
+        this.userId = reservationArchive.getUserId();
+        this.roomId = reservationArchive.getRoomId();
+        this.startDate = reservationArchive.getStartDate();
+        this.endDate = reservationArchive.getEndDate();
+        this.status = reservationArchive.getStatus();
+        this.archivedAt = reservationArchive.getArchivedAt();
+    }
+
+    private Long reservationId;
+    private Long userId;
+    private Long roomId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private ReservationStatusEnum status;
+    private LocalDateTime archivedAt;
+}
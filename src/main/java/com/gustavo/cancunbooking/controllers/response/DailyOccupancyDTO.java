@@ -0,0 +1,16 @@
+package com.gustavo.cancunbooking.controllers.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyOccupancyDTO {
+    private LocalDate date;
+    private int occupiedRooms;
+    private double occupancyRate;
+}
@@ -0,0 +1,19 @@
+package com.gustavo.cancunbooking.controllers.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyOccupancyResponseDTO {
+    private YearMonth month;
+    private int rooms;
+    private double occupancyRate;
+    private List<DailyOccupancyDTO> days;
+    private List<RoomOccupancyDTO> roomOccupancies;
+}
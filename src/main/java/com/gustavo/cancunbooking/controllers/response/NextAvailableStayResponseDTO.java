@@ -0,0 +1,16 @@
+package com.gustavo.cancunbooking.controllers.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NextAvailableStayResponseDTO {
+    private Long roomId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+}
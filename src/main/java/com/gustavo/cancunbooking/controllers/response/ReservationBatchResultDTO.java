@@ -0,0 +1,14 @@
+package com.gustavo.cancunbooking.controllers.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationBatchResultDTO {
+    private boolean isPlaced;
+    private ReservationSuccessResponseDTO reservation;
+    private String errorMessage;
+}
@@ -0,0 +1,19 @@
+package com.gustavo.cancunbooking.controllers.response;
+
+import com.gustavo.cancunbooking.repositories.projections.ReservationHistoryEntry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationHistoryPageDTO {
+    private List<ReservationHistoryEntry> reservations;
+    //passed back as afterStartDate and afterId to get the next page, null on the last page
+    private LocalDate nextAfterStartDate;
+    private Long nextAfterId;
+}
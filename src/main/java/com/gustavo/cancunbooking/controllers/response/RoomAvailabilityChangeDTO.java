@@ -0,0 +1,18 @@
+package com.gustavo.cancunbooking.controllers.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomAvailabilityChangeDTO {
+    private long sequence;
+    private Long roomId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private boolean isAvailable;
+}
@@ -0,0 +1,14 @@
+package com.gustavo.cancunbooking.controllers.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomOccupancyDTO {
+    private Long roomId;
+    private int occupiedDays;
+    private double occupancyRate;
+}
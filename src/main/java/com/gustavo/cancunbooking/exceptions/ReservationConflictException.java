@@ -0,0 +1,12 @@
+package com.gustavo.cancunbooking.exceptions;
+
+public class ReservationConflictException extends ReservationException {
+
+    public ReservationConflictException(String message) {
+        super(message);
+    }
+
+    public ReservationConflictException(ReservationRejectionReasonEnum reason, String message) {
+        super(reason, message);
+    }
+}
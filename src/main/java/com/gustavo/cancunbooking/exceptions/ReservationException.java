@@ -2,10 +2,22 @@ package com.gustavo.cancunbooking.exceptions;
 
 public class ReservationException extends RuntimeException {
 
+    private final ReservationRejectionReasonEnum reason;
+
     public ReservationException() {
+        this.reason = ReservationRejectionReasonEnum.OTHER;
     }
 
     public ReservationException(String message) {
+        this(ReservationRejectionReasonEnum.OTHER, message);
+    }
+
+    public ReservationException(ReservationRejectionReasonEnum reason, String message) {
         super(message);
+        this.reason = reason;
+    }
+
+    public ReservationRejectionReasonEnum getReason() {
+        return reason;
     }
 }
@@ -0,0 +1,21 @@
+package com.gustavo.cancunbooking.exceptions;
+
+public enum ReservationRejectionReasonEnum {
+    SAME_START_AND_END_DATE,
+    START_DATE_AFTER_END_DATE,
+    START_DATE_TODAY,
+    PERIOD_TOO_LONG,
+    START_DATE_TOO_FAR,
+    RESERVATION_NOT_ACTIVE,
+    ROOM_ALREADY_RESERVED,
+    ROOM_NOT_FOUND,
+    USER_NOT_FOUND,
+    RESERVATION_NOT_FOUND,
+    CONCURRENT_MODIFICATION,
+    IDEMPOTENCY_KEY_INVALID,
+    IDEMPOTENCY_KEY_REUSED,
+    IDEMPOTENCY_KEY_IN_PROGRESS,
+    INVALID_PAGE,
+    INVALID_CURSOR,
+    OTHER
+}
@@ -0,0 +1,8 @@
+package com.gustavo.cancunbooking.exceptions;
+
+public class StatisticsUnavailableException extends RuntimeException {
+
+    public StatisticsUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,68 @@
+package com.gustavo.cancunbooking.model;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * The reservation placed for an idempotency key, kept so retries are replayed across restarts and nodes.
+ * <p>
+ * The key is assigned by the client, so the record tells Spring Data whether it is new. A new record is always
+ * inserted, and a key another node already saved fails on the primary key instead of being overwritten.
+ */
+@Entity
+@Table(name = "IDEMPOTENCY_RECORD", indexes = {
+        @Index(name = "IDX_IDEMPOTENCY_RECORD_CREATED_AT", columnList = "CREATED_AT")
+})
+@Getter
+@Setter
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    @Column(name = "IDEMPOTENCY_KEY", length = 255)
+    private String idempotencyKey;
+
+    @Column(name = "RESERVATION_ID", nullable = false)
+    private Long reservationId;
+
+    @Column(name = "USER_ID", nullable = false)
+    private Long userId;
+
+    @Column(name = "ROOM_ID", nullable = false)
+    private Long roomId;
+
+    @Column(name = "START_DATE", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "END_DATE", nullable = false)
+    private LocalDate endDate;
+
+    @Column(name = "CREATED_AT", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean persisted;
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
@@ -7,13 +7,20 @@ import lombok.Setter;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "RESERVATION")
+@Table(name = "RESERVATION", indexes = {
+        @Index(name = "IDX_RESERVATION_ROOM_STATUS_DATES", columnList = "ROOM_ID, STATUS, START_DATE, END_DATE"),
+        @Index(name = "IDX_RESERVATION_STATUS_ID", columnList = "STATUS, ID"),
+        // seeks the history of a user, the trailing columns let the history query read only the index
+        @Index(name = "IDX_RESERVATION_USER_START_ID", columnList = "USER_ID, START_DATE, ID, END_DATE, ROOM_ID, STATUS")
+})
 @Getter
 @Setter
 public class Reservation {
 
+    // pooled sequence ids let Hibernate batch the inserts, on MySQL the sequence is emulated with a table
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "RESERVATION_SEQ")
+    @SequenceGenerator(name = "RESERVATION_SEQ", sequenceName = "RESERVATION_SEQ", allocationSize = 50)
     @Column(name = "ID")
     private Long id;
 
@@ -27,11 +34,15 @@ public class Reservation {
     @JoinColumn(name = "USER_ID", nullable = false)
     private User user;
 
-    @OneToOne(fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ROOM_ID", nullable = false)
     private Room room;
 
     @Column(name = "STATUS", nullable = false)
     @Enumerated(EnumType.STRING)
     private ReservationStatusEnum status;
+
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
 }
@@ -0,0 +1,45 @@
+package com.gustavo.cancunbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A finished or cancelled reservation moved out of the RESERVATION table. It keeps the id of the original
+ * reservation, and room and user are plain ids so archived rows do not hold on to the hot tables.
+ */
+@Entity
+@Table(name = "RESERVATION_ARCHIVE", indexes = {
+        @Index(name = "IDX_RESERVATION_ARCHIVE_ROOM_START_DATE", columnList = "ROOM_ID, START_DATE"),
+        @Index(name = "IDX_RESERVATION_ARCHIVE_USER_START_ID", columnList = "USER_ID, START_DATE, ID")
+})
+@Getter
+@Setter
+public class ReservationArchive {
+
+    @Id
+    @Column(name = "ID")
+    private Long id;
+
+    @Column(name = "START_DATE", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "END_DATE", nullable = false)
+    private LocalDate endDate;
+
+    @Column(name = "USER_ID", nullable = false)
+    private Long userId;
+
+    @Column(name = "ROOM_ID", nullable = false)
+    private Long roomId;
+
+    @Column(name = "STATUS", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ReservationStatusEnum status;
+
+    @Column(name = "ARCHIVED_AT", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,47 @@
+package com.gustavo.cancunbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A change of a reservation written to the outbox in the same transaction as the change itself, and removed once
+ * it was handed to every {@code ReservationEventSink}.
+ */
+@Entity
+@Table(name = "RESERVATION_EVENT")
+@Getter
+@Setter
+public class ReservationEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "RESERVATION_EVENT_SEQ")
+    @SequenceGenerator(name = "RESERVATION_EVENT_SEQ", sequenceName = "RESERVATION_EVENT_SEQ", allocationSize = 50)
+    @Column(name = "ID")
+    private Long id;
+
+    @Column(name = "TYPE", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ReservationEventTypeEnum type;
+
+    @Column(name = "RESERVATION_ID", nullable = false)
+    private Long reservationId;
+
+    @Column(name = "USER_ID", nullable = false)
+    private Long userId;
+
+    @Column(name = "ROOM_ID", nullable = false)
+    private Long roomId;
+
+    @Column(name = "START_DATE", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "END_DATE", nullable = false)
+    private LocalDate endDate;
+
+    @Column(name = "CREATED_AT", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,7 @@
+package com.gustavo.cancunbooking.model;
+
+public enum ReservationEventTypeEnum {
+    PLACED,
+    UPDATED,
+    CANCELLED
+}
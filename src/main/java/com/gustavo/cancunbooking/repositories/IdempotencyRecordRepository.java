@@ -0,0 +1,19 @@
+package com.gustavo.cancunbooking.repositories;
+
+import com.gustavo.cancunbooking.model.IdempotencyRecord;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    @Transactional
+    @Modifying
+    @Query("Delete From IdempotencyRecord i where i.createdAt < :createdAt")
+    int deleteCreatedBefore(LocalDateTime createdAt);
+}
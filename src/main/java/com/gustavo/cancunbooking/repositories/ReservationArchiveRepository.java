@@ -0,0 +1,57 @@
+package com.gustavo.cancunbooking.repositories;
+
+import com.gustavo.cancunbooking.model.ReservationArchive;
+import com.gustavo.cancunbooking.repositories.projections.OccupiedPeriod;
+import com.gustavo.cancunbooking.repositories.projections.ReservationHistoryEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReservationArchiveRepository extends JpaRepository<ReservationArchive, Long> {
+
+    @Modifying
+    @Query("Insert into ReservationArchive (id, startDate, endDate, userId, roomId, status, archivedAt) " +
+            "Select r.id, r.startDate, r.endDate, r.user.id, r.room.id, r.status, cast(:archivedAt as LocalDateTime) " +
+            "From Reservation r " +
+            "where r.id in :ids " +
+            "and r.status <> com.gustavo.cancunbooking.model.ReservationStatusEnum.ACTIVE " +
+            "and not exists (Select a.id From ReservationArchive a where a.id = r.id)")
+    int copyFromReservations(List<Long> ids, LocalDateTime archivedAt);
+
+    @Query("Select a From ReservationArchive a " +
+            "where a.roomId = :roomId " +
+            "and a.startDate <= :endDate " +
+            "and a.endDate >= :startDate " +
+            "order by a.startDate, a.id")
+    List<ReservationArchive> findByRoomIdOverlapping(Long roomId, LocalDate startDate, LocalDate endDate, Pageable pageable);
+
+    List<ReservationArchive> findByUserIdOrderByStartDateAscIdAsc(Long userId, Pageable pageable);
+
+    @Query("Select new com.gustavo.cancunbooking.repositories.projections.ReservationHistoryEntry(a.id, a.roomId, a.startDate, a.endDate, a.status) " +
+            "From ReservationArchive a " +
+            "where a.userId = :userId " +
+            "order by a.startDate, a.id")
+    List<ReservationHistoryEntry> findHistoryOfUser(Long userId, Limit limit);
+
+    @Query("Select new com.gustavo.cancunbooking.repositories.projections.ReservationHistoryEntry(a.id, a.roomId, a.startDate, a.endDate, a.status) " +
+            "From ReservationArchive a " +
+            "where a.userId = :userId " +
+            "and (a.startDate > :afterStartDate or (a.startDate = :afterStartDate and a.id > :afterId)) " +
+            "order by a.startDate, a.id")
+    List<ReservationHistoryEntry> findHistoryOfUserAfter(Long userId, LocalDate afterStartDate, Long afterId, Limit limit);
+
+    @Query("Select new com.gustavo.cancunbooking.repositories.projections.OccupiedPeriod(a.id, a.roomId, a.startDate, a.endDate) " +
+            "From ReservationArchive a " +
+            "where a.status = com.gustavo.cancunbooking.model.ReservationStatusEnum.FINISHED " +
+            "and a.id > :afterId " +
+            "order by a.id")
+    List<OccupiedPeriod> findOccupiedPeriodsAfter(Long afterId, Limit limit);
+}
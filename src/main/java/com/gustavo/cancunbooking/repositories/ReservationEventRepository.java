@@ -0,0 +1,26 @@
+package com.gustavo.cancunbooking.repositories;
+
+import com.gustavo.cancunbooking.model.ReservationEvent;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReservationEventRepository extends JpaRepository<ReservationEvent, Long> {
+
+    @Query("Select e From ReservationEvent e order by e.id")
+    List<ReservationEvent> findOldest(Limit limit);
+
+    Optional<ReservationEvent> findFirstByOrderByIdAsc();
+
+    @Transactional
+    @Modifying
+    @Query("Delete From ReservationEvent e where e.id in :ids")
+    int deleteDispatched(List<Long> ids);
+}
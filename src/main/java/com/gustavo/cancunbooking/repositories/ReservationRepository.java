@@ -2,24 +2,119 @@ package com.gustavo.cancunbooking.repositories;
 
 import com.gustavo.cancunbooking.model.Reservation;
 import com.gustavo.cancunbooking.model.ReservationStatusEnum;
+import com.gustavo.cancunbooking.repositories.projections.OccupiedPeriod;
+import com.gustavo.cancunbooking.repositories.projections.ReservationExportRow;
+import com.gustavo.cancunbooking.repositories.projections.ReservationHistoryEntry;
+import com.gustavo.cancunbooking.repositories.projections.ReservationPeriod;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
 
     @Query("Select r From Reservation r " +
+            "join fetch r.room " +
+            "join fetch r.user " +
+            "where r.id = :id")
+    Optional<Reservation> findWithRoomAndUserById(Long id);
+
+    @Query("Select new com.gustavo.cancunbooking.repositories.projections.ReservationPeriod(r.room.id, r.startDate, r.endDate) " +
+            "From Reservation r " +
             "where r.endDate >= :date " +
-            "and r.room.id = :roomId " +
             "and r.status = com.gustavo.cancunbooking.model.ReservationStatusEnum.ACTIVE")
-    Optional<Reservation> findReservationAtDateOrGreater(LocalDate date, Long roomId);
+    List<ReservationPeriod> findActiveReservationPeriodsEndingAtDateOrGreater(LocalDate date);
 
-    @Query("Select r From Reservation r " +
+    @Query("Select new com.gustavo.cancunbooking.repositories.projections.ReservationHistoryEntry(r.id, r.room.id, r.startDate, r.endDate, r.status) " +
+            "From Reservation r " +
+            "where r.user.id = :userId " +
+            "order by r.startDate, r.id")
+    List<ReservationHistoryEntry> findHistoryOfUser(Long userId, Limit limit);
+
+    // seeks past the last reservation of the previous page instead of skipping an offset
+    @Query("Select new com.gustavo.cancunbooking.repositories.projections.ReservationHistoryEntry(r.id, r.room.id, r.startDate, r.endDate, r.status) " +
+            "From Reservation r " +
+            "where r.user.id = :userId " +
+            "and (r.startDate > :afterStartDate or (r.startDate = :afterStartDate and r.id > :afterId)) " +
+            "order by r.startDate, r.id")
+    List<ReservationHistoryEntry> findHistoryOfUserAfter(Long userId, LocalDate afterStartDate, Long afterId, Limit limit);
+
+    // every reservation that was not cancelled occupies its room, whether it is still active or already finished
+    @Query("Select new com.gustavo.cancunbooking.repositories.projections.OccupiedPeriod(r.id, r.room.id, r.startDate, r.endDate) " +
+            "From Reservation r " +
+            "where r.status <> com.gustavo.cancunbooking.model.ReservationStatusEnum.CANCELLED " +
+            "and r.id > :afterId " +
+            "order by r.id")
+    List<OccupiedPeriod> findOccupiedPeriodsAfter(Long afterId, Limit limit);
+
+    // read through a cursor a fetch size of rows at a time, the stream has to be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("Select new com.gustavo.cancunbooking.repositories.projections.ReservationExportRow(r.id, r.user.id, r.room.id, r.startDate, r.endDate, r.status) " +
+            "From Reservation r " +
+            "where r.startDate <= :endDate " +
+            "and r.endDate >= :startDate " +
+            "and r.status in :statuses " +
+            "order by r.id")
+    Stream<ReservationExportRow> streamForExport(LocalDate startDate, LocalDate endDate, Collection<ReservationStatusEnum> statuses);
+
+    // availability checks outside the occupancy index window are served by the read replica when one is configured
+    @Transactional(readOnly = true)
+    @Query("Select case when count(r) > 0 then true else false end From Reservation r " +
             "where r.room.id = :roomId " +
-            "and r.status = :status")
-    Optional<Reservation> findByRoomIdAndStatus(Long roomId, ReservationStatusEnum status);
+            "and r.status = com.gustavo.cancunbooking.model.ReservationStatusEnum.ACTIVE " +
+            "and r.startDate <= :endDate " +
+            "and r.endDate >= :startDate")
+    boolean existsActiveReservationOverlapping(Long roomId, LocalDate startDate, LocalDate endDate);
+
+    @Transactional(readOnly = true)
+    @Query("Select distinct r.room.id From Reservation r " +
+            "where r.status = com.gustavo.cancunbooking.model.ReservationStatusEnum.ACTIVE " +
+            "and r.startDate <= :endDate " +
+            "and r.endDate >= :startDate")
+    List<Long> findRoomIdsWithActiveReservationOverlapping(LocalDate startDate, LocalDate endDate);
+
+    @Query("Select r.id From Reservation r " +
+            "where r.status = com.gustavo.cancunbooking.model.ReservationStatusEnum.ACTIVE " +
+            "and r.endDate < :date " +
+            "and r.id > :afterId " +
+            "order by r.id")
+    List<Long> findActiveReservationIdsEndedBefore(LocalDate date, Long afterId, Limit limit);
+
+    // the conditions are checked again so concurrent runs and reservations cancelled in the meantime are left alone
+    @Transactional
+    @Modifying
+    @Query("Update Reservation r set r.status = com.gustavo.cancunbooking.model.ReservationStatusEnum.FINISHED, " +
+            "r.version = r.version + 1 " +
+            "where r.id in :ids " +
+            "and r.status = com.gustavo.cancunbooking.model.ReservationStatusEnum.ACTIVE " +
+            "and r.endDate < :date")
+    int finishActiveReservationsEndedBefore(List<Long> ids, LocalDate date);
+
+    @Query("Select r.id From Reservation r " +
+            "where r.status in (com.gustavo.cancunbooking.model.ReservationStatusEnum.FINISHED, " +
+            "com.gustavo.cancunbooking.model.ReservationStatusEnum.CANCELLED) " +
+            "and r.endDate < :date " +
+            "and r.id > :afterId " +
+            "order by r.id")
+    List<Long> findInactiveReservationIdsEndedBefore(LocalDate date, Long afterId, Limit limit);
+
+    // only rows already copied to the archive are removed
+    @Modifying
+    @Query("Delete From Reservation r " +
+            "where r.id in :ids " +
+            "and r.status <> com.gustavo.cancunbooking.model.ReservationStatusEnum.ACTIVE " +
+            "and exists (Select a.id From ReservationArchive a where a.id = r.id)")
+    int deleteArchived(List<Long> ids);
 }
@@ -1,9 +1,72 @@
 package com.gustavo.cancunbooking.repositories;
 
+import com.gustavo.cancunbooking.beans.CacheConfig;
 import com.gustavo.cancunbooking.model.Room;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface RoomRepository extends JpaRepository<Room, Long> {
+
+    @Query("Select r.id From Room r")
+    List<Long> findAllIds();
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.ROOMS_CACHE, unless = "#result == null")
+    Optional<Room> findById(Long id);
+
+    @Override
+    @CachePut(cacheNames = CacheConfig.ROOMS_CACHE, key = "#result.id")
+    <S extends Room> S save(S room);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ROOMS_CACHE, allEntries = true)
+    <S extends Room> List<S> saveAll(Iterable<S> rooms);
+
+    @Override
+    @CachePut(cacheNames = CacheConfig.ROOMS_CACHE, key = "#result.id")
+    <S extends Room> S saveAndFlush(S room);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ROOMS_CACHE, allEntries = true)
+    <S extends Room> List<S> saveAllAndFlush(Iterable<S> rooms);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ROOMS_CACHE)
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ROOMS_CACHE, key = "#room.id")
+    void delete(Room room);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ROOMS_CACHE, allEntries = true)
+    void deleteAll();
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ROOMS_CACHE, allEntries = true)
+    void deleteAllById(Iterable<? extends Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ROOMS_CACHE, allEntries = true)
+    void deleteAll(Iterable<? extends Room> rooms);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ROOMS_CACHE, allEntries = true)
+    void deleteAllInBatch();
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ROOMS_CACHE, allEntries = true)
+    void deleteAllInBatch(Iterable<Room> rooms);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ROOMS_CACHE, allEntries = true)
+    void deleteAllByIdInBatch(Iterable<Long> ids);
 }
@@ -1,9 +1,68 @@
 package com.gustavo.cancunbooking.repositories;
 
+import com.gustavo.cancunbooking.beans.CacheConfig;
 import com.gustavo.cancunbooking.model.User;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, unless = "#result == null")
+    Optional<User> findById(Long id);
+
+    @Override
+    @CachePut(cacheNames = CacheConfig.USERS_CACHE, key = "#result.id")
+    <S extends User> S save(S user);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, allEntries = true)
+    <S extends User> List<S> saveAll(Iterable<S> users);
+
+    @Override
+    @CachePut(cacheNames = CacheConfig.USERS_CACHE, key = "#result.id")
+    <S extends User> S saveAndFlush(S user);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, allEntries = true)
+    <S extends User> List<S> saveAllAndFlush(Iterable<S> users);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE)
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#user.id")
+    void delete(User user);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, allEntries = true)
+    void deleteAll();
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, allEntries = true)
+    void deleteAllById(Iterable<? extends Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, allEntries = true)
+    void deleteAll(Iterable<? extends User> users);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, allEntries = true)
+    void deleteAllInBatch();
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, allEntries = true)
+    void deleteAllInBatch(Iterable<User> users);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, allEntries = true)
+    void deleteAllByIdInBatch(Iterable<Long> ids);
 }
@@ -0,0 +1,6 @@
+package com.gustavo.cancunbooking.repositories.projections;
+
+import java.time.LocalDate;
+
+public record OccupiedPeriod(Long id, Long roomId, LocalDate startDate, LocalDate endDate) {
+}
@@ -0,0 +1,9 @@
+package com.gustavo.cancunbooking.repositories.projections;
+
+import com.gustavo.cancunbooking.model.ReservationStatusEnum;
+
+import java.time.LocalDate;
+
+public record ReservationExportRow(Long reservationId, Long userId, Long roomId, LocalDate startDate, LocalDate endDate,
+                                   ReservationStatusEnum status) {
+}
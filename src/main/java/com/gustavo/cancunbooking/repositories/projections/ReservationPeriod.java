@@ -0,0 +1,6 @@
+package com.gustavo.cancunbooking.repositories.projections;
+
+import java.time.LocalDate;
+
+public record ReservationPeriod(Long roomId, LocalDate startDate, LocalDate endDate) {
+}
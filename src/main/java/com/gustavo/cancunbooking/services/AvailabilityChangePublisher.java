@@ -0,0 +1,161 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.beans.AvailabilityExecutorConfig;
+import com.gustavo.cancunbooking.controllers.response.RoomAvailabilityChangeDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans out the committed changes of room availability to the subscribers of the availability stream. Publishing
+ * only appends the change to the buffer of every interested subscriber, each subscriber is then drained on its own
+ * task, so a slow client never delays the booking that published the change or the other subscribers.
+ * <p>
+ * Buffers are bounded, when a subscriber falls behind its oldest undelivered changes are dropped. Changes are
+ * numbered per subscription as they are buffered, so a gap in the sequence only appears when changes of the
+ * subscribed rooms were dropped and the client should check availability again.
+ */
+@Component
+public class AvailabilityChangePublisher {
+
+    static final String SUBSCRIBERS_METRIC = "cancunbooking.availability.stream.subscribers";
+    static final String PUBLISHED_METRIC = "cancunbooking.availability.stream.published";
+    static final String DROPPED_METRIC = "cancunbooking.availability.stream.dropped";
+
+    private final Executor availabilityExecutor;
+    private final int bufferSize;
+
+    private final Set<Subscription> allRoomSubscriptions = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Subscription>> roomSubscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger activeSubscriptions = new AtomicInteger();
+
+    private final Counter publishedChanges;
+    private final Counter droppedChanges;
+
+    @Autowired
+    public AvailabilityChangePublisher(
+            @Qualifier(AvailabilityExecutorConfig.AVAILABILITY_EXECUTOR) Executor availabilityExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${cancunbooking.availability-stream.buffer-size:256}") int bufferSize
+    ) {
+        this.availabilityExecutor = availabilityExecutor;
+        this.bufferSize = bufferSize;
+
+        this.publishedChanges = Counter.builder(PUBLISHED_METRIC).register(meterRegistry);
+        this.droppedChanges = Counter.builder(DROPPED_METRIC).register(meterRegistry);
+        Gauge.builder(SUBSCRIBERS_METRIC, activeSubscriptions, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Subscribes to the changes of the given rooms, or of every room when no room is given.
+     */
+    public Subscription subscribe(Set<Long> roomIds, Listener listener) {
+        var subscription = new Subscription(Set.copyOf(roomIds), listener);
+        activeSubscriptions.incrementAndGet();
+        if (roomIds.isEmpty()) {
+            allRoomSubscriptions.add(subscription);
+        } else {
+            roomIds.forEach(roomId -> roomSubscriptions.computeIfAbsent(roomId, id -> ConcurrentHashMap.newKeySet()).add(subscription));
+        }
+        return subscription;
+    }
+
+    public void publish(Long roomId, LocalDate startDate, LocalDate endDate, boolean isAvailable) {
+        publishedChanges.increment();
+
+        allRoomSubscriptions.forEach(subscription -> subscription.enqueue(roomId, startDate, endDate, isAvailable));
+        Set<Subscription> subscriptions = roomSubscriptions.get(roomId);
+        if (subscriptions != null) {
+            subscriptions.forEach(subscription -> subscription.enqueue(roomId, startDate, endDate, isAvailable));
+        }
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        void onChange(RoomAvailabilityChangeDTO change) throws IOException;
+    }
+
+    public final class Subscription {
+
+        private final Set<Long> roomIds;
+        private final Listener listener;
+        private final ArrayBlockingQueue<RoomAvailabilityChangeDTO> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean isDraining = new AtomicBoolean();
+        private final AtomicBoolean isCancelled = new AtomicBoolean();
+        private long sequence;
+
+        private Subscription(Set<Long> roomIds, Listener listener) {
+            this.roomIds = roomIds;
+            this.listener = listener;
+        }
+
+        public void cancel() {
+            if (!isCancelled.compareAndSet(false, true)) {
+                return;
+            }
+
+            activeSubscriptions.decrementAndGet();
+            if (roomIds.isEmpty()) {
+                allRoomSubscriptions.remove(this);
+            } else {
+                roomIds.forEach(roomId -> roomSubscriptions.computeIfPresent(roomId, (id, subscriptions) -> {
+                    subscriptions.remove(this);
+                    return subscriptions.isEmpty() ? null : subscriptions;
+                }));
+            }
+            buffer.clear();
+        }
+
+        private void enqueue(Long roomId, LocalDate startDate, LocalDate endDate, boolean isAvailable) {
+            // numbered and buffered together, so the buffer holds the changes in sequence order
+            synchronized (this) {
+                var change = new RoomAvailabilityChangeDTO(++sequence, roomId, startDate, endDate, isAvailable);
+                while (!buffer.offer(change)) {
+                    if (buffer.poll() != null) {
+                        droppedChanges.increment();
+                    }
+                }
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (isDraining.compareAndSet(false, true)) {
+                availabilityExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                RoomAvailabilityChangeDTO change;
+                while (!isCancelled.get() && (change = buffer.poll()) != null) {
+                    listener.onChange(change);
+                }
+            } catch (IOException | RuntimeException e) {
+                // the client went away, changes are no longer delivered to it
+                cancel();
+            } finally {
+                isDraining.set(false);
+            }
+
+            // a change enqueued after the last poll found the drain still running and did not schedule another one
+            if (!isCancelled.get() && !buffer.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
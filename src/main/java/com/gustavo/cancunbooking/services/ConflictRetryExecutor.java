@@ -0,0 +1,98 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.exceptions.ReservationConflictException;
+import com.gustavo.cancunbooking.exceptions.ReservationRejectionReasonEnum;
+import com.gustavo.cancunbooking.services.ReservationMetrics.Operation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write of a versioned entity in its own transaction and runs it again in a new transaction when
+ * another one changed the same row first. Optimistic conflicts only surface when the transaction flushes, which is
+ * why the transaction is started here instead of around the caller. Attempts are spaced by an exponential backoff
+ * with full jitter, and once they are exhausted the conflict is reported as a {@link ReservationConflictException}.
+ */
+@Component
+public class ConflictRetryExecutor {
+
+    static final String CONFLICT_MESSAGE = "The reservation was modified concurrently, please try again";
+    static final String CONFLICTS_METRIC = "cancunbooking.reservation.conflicts";
+    static final String EXHAUSTED_METRIC = "cancunbooking.reservation.conflicts.exhausted";
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final double backoffMultiplier;
+    private final long maxBackoffNanos;
+
+    private final Map<Operation, Counter> conflicts = new EnumMap<>(Operation.class);
+    private final Map<Operation, Counter> exhaustedRetries = new EnumMap<>(Operation.class);
+
+    @Autowired
+    public ConflictRetryExecutor(
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${cancunbooking.conflict-retry.max-attempts:3}") int maxAttempts,
+            @Value("${cancunbooking.conflict-retry.initial-backoff:PT0.01S}") Duration initialBackoff,
+            @Value("${cancunbooking.conflict-retry.multiplier:2}") double backoffMultiplier,
+            @Value("${cancunbooking.conflict-retry.max-backoff:PT0.2S}") Duration maxBackoff
+    ) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.backoffMultiplier = backoffMultiplier;
+        this.maxBackoffNanos = maxBackoff.toNanos();
+
+        for (Operation operation : Operation.values()) {
+            String tagValue = operation.name().toLowerCase(Locale.ROOT);
+            conflicts.put(operation, Counter.builder(CONFLICTS_METRIC).tag("operation", tagValue).register(meterRegistry));
+            exhaustedRetries.put(operation, Counter.builder(EXHAUSTED_METRIC).tag("operation", tagValue).register(meterRegistry));
+        }
+    }
+
+    public <T> T execute(Operation operation, Supplier<T> action) {
+        // a caller that already has a transaction sees the conflict when it commits, so it cannot be retried here
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+
+        long backoffNanos = initialBackoffNanos;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.get(operation).increment();
+                if (attempt >= maxAttempts) {
+                    exhaustedRetries.get(operation).increment();
+                    throw new ReservationConflictException(ReservationRejectionReasonEnum.CONCURRENT_MODIFICATION, CONFLICT_MESSAGE);
+                }
+            }
+
+            sleep(ThreadLocalRandom.current().nextLong(backoffNanos + 1));
+            backoffNanos = Math.min((long) (backoffNanos * backoffMultiplier), maxBackoffNanos);
+        }
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReservationConflictException(ReservationRejectionReasonEnum.CONCURRENT_MODIFICATION, CONFLICT_MESSAGE);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.model.ReservationEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Slf4j
+@Component
+public class LoggingReservationEventSink implements ReservationEventSink {
+
+    @Override
+    public void accept(List<ReservationEvent> events) {
+        if (log.isDebugEnabled()) {
+            events.forEach(event -> log.debug("Reservation {} {}: room {} from {} to {} (event {})",
+                    event.getReservationId(), event.getType(), event.getRoomId(),
+                    event.getStartDate(), event.getEndDate(), event.getId()));
+        }
+    }
+}
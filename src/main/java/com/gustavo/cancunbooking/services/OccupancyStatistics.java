@@ -0,0 +1,203 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.repositories.ReservationArchiveRepository;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.projections.OccupiedPeriod;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Counts, for every month, how many rooms are occupied on each day and how many days each room is occupied.
+ * {@link RoomBookingCoordinator} adds and removes the days of a reservation once the change has committed, so a
+ * month report reads a few counters instead of scanning reservations. The rooms of a day are counted on striped
+ * adders, so bookings of different rooms for the same days do not contend on a shared counter.
+ * <p>
+ * The counters are rebuilt from the reservations and the archive at startup, before requests are served. Rows are
+ * read by id in chunks and every chunk is counted in parallel on the common fork-join pool. The scan grows with the
+ * archive, so nodes that do not serve the report can disable the statistics and skip it.
+ * <p>
+ * The counters only see the changes committed on this node. With several nodes taking reservations the report of
+ * each node misses the changes of the others until its next restart, so the statistics are meant for a single node.
+ */
+@Slf4j
+@Component
+public class OccupancyStatistics {
+
+    private static final int SEQUENTIAL_THRESHOLD = 1024;
+
+    private final ReservationRepository reservationRepository;
+    private final ReservationArchiveRepository reservationArchiveRepository;
+    private final int rebuildChunkSize;
+    private final boolean enabled;
+
+    private volatile ConcurrentMap<YearMonth, MonthOccupancy> occupancyByMonth = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OccupancyStatistics(
+            ReservationRepository reservationRepository,
+            ReservationArchiveRepository reservationArchiveRepository,
+            @Value("${cancunbooking.statistics.rebuild-chunk-size:10000}") int rebuildChunkSize,
+            @Value("${cancunbooking.statistics.enabled:true}") boolean enabled
+    ) {
+        this.reservationRepository = reservationRepository;
+        this.reservationArchiveRepository = reservationArchiveRepository;
+        this.rebuildChunkSize = rebuildChunkSize;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void load() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Counts every occupied period again into new counters, which replace the current ones once complete, and
+     * returns how many periods were counted. Changes committed while it runs may be missed, so it is only run
+     * when no reservation is being changed.
+     */
+    public int rebuild() {
+        long startNanos = System.nanoTime();
+        ConcurrentMap<YearMonth, MonthOccupancy> rebuilt = new ConcurrentHashMap<>();
+        int periods = countPeriods(reservationRepository::findOccupiedPeriodsAfter, rebuilt)
+                + countPeriods(reservationArchiveRepository::findOccupiedPeriodsAfter, rebuilt);
+        occupancyByMonth = rebuilt;
+
+        log.info("Rebuilt the occupancy statistics from {} reservations in {} ms",
+                periods, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return periods;
+    }
+
+    public void add(Long roomId, LocalDate startDate, LocalDate endDate) {
+        if (!enabled) {
+            return;
+        }
+        count(occupancyByMonth, roomId, startDate, endDate, 1);
+    }
+
+    public void remove(Long roomId, LocalDate startDate, LocalDate endDate) {
+        if (!enabled) {
+            return;
+        }
+        count(occupancyByMonth, roomId, startDate, endDate, -1);
+    }
+
+    public MonthStatistics getMonth(YearMonth month) {
+        MonthOccupancy occupancy = occupancyByMonth.get(month);
+        int[] occupiedRoomsByDay = new int[month.lengthOfMonth()];
+        Map<Long, Integer> occupiedDaysByRoom = new HashMap<>();
+        if (occupancy != null) {
+            for (int day = 0; day < occupiedRoomsByDay.length; day++) {
+                occupiedRoomsByDay[day] = occupancy.occupiedRoomsByDay[day].intValue();
+            }
+            occupancy.occupiedDaysByRoom.forEach((roomId, days) -> {
+                if (days.get() > 0) {
+                    occupiedDaysByRoom.put(roomId, days.get());
+                }
+            });
+        }
+        return new MonthStatistics(occupiedRoomsByDay, occupiedDaysByRoom);
+    }
+
+    private int countPeriods(BiFunction<Long, Limit, List<OccupiedPeriod>> findPeriodsAfter,
+                             ConcurrentMap<YearMonth, MonthOccupancy> target) {
+        int periods = 0;
+        Long afterId = 0L;
+        List<OccupiedPeriod> chunk;
+        do {
+            chunk = findPeriodsAfter.apply(afterId, Limit.of(rebuildChunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            ForkJoinPool.commonPool().invoke(new CountPeriodsTask(chunk, 0, chunk.size(), target));
+            periods += chunk.size();
+            afterId = chunk.get(chunk.size() - 1).id();
+        } while (chunk.size() == rebuildChunkSize);
+        return periods;
+    }
+
+    private static void count(ConcurrentMap<YearMonth, MonthOccupancy> target, Long roomId,
+                              LocalDate startDate, LocalDate endDate, int delta) {
+        LocalDate monthStart = startDate;
+        while (!monthStart.isAfter(endDate)) {
+            YearMonth month = YearMonth.from(monthStart);
+            LocalDate monthEnd = endDate.isBefore(month.atEndOfMonth()) ? endDate : month.atEndOfMonth();
+            MonthOccupancy occupancy = target.computeIfAbsent(month, MonthOccupancy::new);
+            for (int day = monthStart.getDayOfMonth(); day <= monthEnd.getDayOfMonth(); day++) {
+                occupancy.occupiedRoomsByDay[day - 1].add(delta);
+            }
+            occupancy.occupiedDaysByRoom.computeIfAbsent(roomId, id -> new AtomicInteger())
+                    .addAndGet(delta * (monthEnd.getDayOfMonth() - monthStart.getDayOfMonth() + 1));
+            monthStart = monthEnd.plusDays(1);
+        }
+    }
+
+    private static final class MonthOccupancy {
+        private final LongAdder[] occupiedRoomsByDay;
+        private final ConcurrentMap<Long, AtomicInteger> occupiedDaysByRoom = new ConcurrentHashMap<>();
+
+        private MonthOccupancy(YearMonth month) {
+            this.occupiedRoomsByDay = new LongAdder[month.lengthOfMonth()];
+            for (int day = 0; day < occupiedRoomsByDay.length; day++) {
+                occupiedRoomsByDay[day] = new LongAdder();
+            }
+        }
+    }
+
+    private static final class CountPeriodsTask extends RecursiveAction {
+        private final List<OccupiedPeriod> periods;
+        private final int from;
+        private final int to;
+        private final ConcurrentMap<YearMonth, MonthOccupancy> target;
+
+        private CountPeriodsTask(List<OccupiedPeriod> periods, int from, int to, ConcurrentMap<YearMonth, MonthOccupancy> target) {
+            this.periods = periods;
+            this.from = from;
+            this.to = to;
+            this.target = target;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    OccupiedPeriod period = periods.get(i);
+                    count(target, period.roomId(), period.startDate(), period.endDate(), 1);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new CountPeriodsTask(periods, from, middle, target), new CountPeriodsTask(periods, middle, to, target));
+        }
+    }
+
+    /**
+     * Occupied rooms by day of the month, starting at index 0 for the first day, and occupied days by room.
+     */
+    public record MonthStatistics(int[] occupiedRoomsByDay, Map<Long, Integer> occupiedDaysByRoom) { }
+}
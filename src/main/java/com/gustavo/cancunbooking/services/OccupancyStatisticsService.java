@@ -0,0 +1,9 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.controllers.response.MonthlyOccupancyResponseDTO;
+
+import java.time.YearMonth;
+
+public interface OccupancyStatisticsService {
+    MonthlyOccupancyResponseDTO getMonthlyOccupancy(YearMonth month);
+}
@@ -0,0 +1,59 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.controllers.response.DailyOccupancyDTO;
+import com.gustavo.cancunbooking.controllers.response.MonthlyOccupancyResponseDTO;
+import com.gustavo.cancunbooking.controllers.response.RoomOccupancyDTO;
+import com.gustavo.cancunbooking.exceptions.StatisticsUnavailableException;
+import com.gustavo.cancunbooking.repositories.RoomRepository;
+import com.gustavo.cancunbooking.services.OccupancyStatistics.MonthStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class OccupancyStatisticsServiceImpl implements OccupancyStatisticsService {
+
+    private final OccupancyStatistics occupancyStatistics;
+    private final RoomRepository roomRepository;
+
+    @Autowired
+    public OccupancyStatisticsServiceImpl(OccupancyStatistics occupancyStatistics, RoomRepository roomRepository) {
+        this.occupancyStatistics = occupancyStatistics;
+        this.roomRepository = roomRepository;
+    }
+
+    @Override
+    public MonthlyOccupancyResponseDTO getMonthlyOccupancy(YearMonth month) {
+        if (!occupancyStatistics.isEnabled()) {
+            throw new StatisticsUnavailableException("The occupancy statistics are disabled on this node");
+        }
+        MonthStatistics statistics = occupancyStatistics.getMonth(month);
+        List<Long> roomIds = roomRepository.findAllIds().stream().sorted().toList();
+        int rooms = roomIds.size();
+        int daysInMonth = month.lengthOfMonth();
+
+        long occupiedRoomDays = 0;
+        List<DailyOccupancyDTO> days = new ArrayList<>(daysInMonth);
+        for (int day = 1; day <= daysInMonth; day++) {
+            int occupiedRooms = statistics.occupiedRoomsByDay()[day - 1];
+            occupiedRoomDays += occupiedRooms;
+            days.add(new DailyOccupancyDTO(month.atDay(day), occupiedRooms, rate(occupiedRooms, rooms)));
+        }
+
+        List<RoomOccupancyDTO> roomOccupancies = roomIds.stream()
+                .map(roomId -> {
+                    int occupiedDays = statistics.occupiedDaysByRoom().getOrDefault(roomId, 0);
+                    return new RoomOccupancyDTO(roomId, occupiedDays, rate(occupiedDays, daysInMonth));
+                })
+                .toList();
+
+        return new MonthlyOccupancyResponseDTO(month, rooms, rate(occupiedRoomDays, (long) rooms * daysInMonth), days, roomOccupancies);
+    }
+
+    private static double rate(long occupied, long total) {
+        return total == 0 ? 0 : (double) occupied / total;
+    }
+}
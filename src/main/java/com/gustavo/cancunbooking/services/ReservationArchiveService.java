@@ -0,0 +1,12 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.controllers.response.ArchivedReservationResponseDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ReservationArchiveService {
+    ArchivedReservationResponseDTO getArchivedReservation(Long reservationId);
+    List<ArchivedReservationResponseDTO> findArchivedReservationsOfRoom(Long roomId, LocalDate startDate, LocalDate endDate, int page, int size);
+    List<ArchivedReservationResponseDTO> findArchivedReservationsOfUser(Long userId, int page, int size);
+}
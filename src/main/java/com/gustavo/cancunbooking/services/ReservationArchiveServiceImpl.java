@@ -0,0 +1,60 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.controllers.response.ArchivedReservationResponseDTO;
+import com.gustavo.cancunbooking.exceptions.ReservationException;
+import com.gustavo.cancunbooking.exceptions.ReservationRejectionReasonEnum;
+import com.gustavo.cancunbooking.repositories.ReservationArchiveRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Service
+@Transactional(readOnly = true)
+public class ReservationArchiveServiceImpl implements ReservationArchiveService {
+
+    public static final int MAXIMUM_PAGE_SIZE = 200;
+
+    private final ReservationArchiveRepository reservationArchiveRepository;
+
+    @Autowired
+    public ReservationArchiveServiceImpl(ReservationArchiveRepository reservationArchiveRepository) {
+        this.reservationArchiveRepository = reservationArchiveRepository;
+    }
+
+    @Override
+    public ArchivedReservationResponseDTO getArchivedReservation(Long reservationId) {
+        return reservationArchiveRepository.findById(reservationId)
+                .map(ArchivedReservationResponseDTO::new)
+                .orElseThrow(() -> new ReservationException(ReservationRejectionReasonEnum.RESERVATION_NOT_FOUND, "No archived reservation found with the given id"));
+    }
+
+    @Override
+    public List<ArchivedReservationResponseDTO> findArchivedReservationsOfRoom(Long roomId, LocalDate startDate, LocalDate endDate, int page, int size) {
+        if (startDate.isAfter(endDate)) {
+            throw new ReservationException(ReservationRejectionReasonEnum.START_DATE_AFTER_END_DATE, "The start date cannot be after the end date");
+        }
+
+        return reservationArchiveRepository.findByRoomIdOverlapping(roomId, startDate, endDate, pageRequest(page, size)).stream()
+                .map(ArchivedReservationResponseDTO::new)
+                .toList();
+    }
+
+    @Override
+    public List<ArchivedReservationResponseDTO> findArchivedReservationsOfUser(Long userId, int page, int size) {
+        return reservationArchiveRepository.findByUserIdOrderByStartDateAscIdAsc(userId, pageRequest(page, size)).stream()
+                .map(ArchivedReservationResponseDTO::new)
+                .toList();
+    }
+
+    private static Pageable pageRequest(int page, int size) {
+        if (page < 0 || size < 1 || size > MAXIMUM_PAGE_SIZE) {
+            throw new ReservationException(ReservationRejectionReasonEnum.INVALID_PAGE, "The page cannot be negative and the size must be between 1 and 200");
+        }
+        return PageRequest.of(page, size);
+    }
+}
@@ -0,0 +1,108 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.repositories.ReservationArchiveRepository;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves finished and cancelled reservations that ended more than the retention period ago from RESERVATION to
+ * RESERVATION_ARCHIVE, so the table every booking reads only keeps recent rows. Rows are moved in chunks, each
+ * copied and deleted in its own transaction, and a chunk already moved by another node is skipped.
+ */
+@Slf4j
+@Component
+public class ReservationArchiver {
+
+    static final String ARCHIVED_METRIC = "cancunbooking.archive.archived";
+    static final String CHUNKS_METRIC = "cancunbooking.archive.chunks";
+
+    private final ReservationRepository reservationRepository;
+    private final ReservationArchiveRepository reservationArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int retentionDays;
+    private final int chunkSize;
+
+    private final Counter archivedReservations;
+    private final Timer chunkTimer;
+
+    @Autowired
+    public ReservationArchiver(
+            ReservationRepository reservationRepository,
+            ReservationArchiveRepository reservationArchiveRepository,
+            PlatformTransactionManager transactionManager,
+            Clock clock,
+            MeterRegistry meterRegistry,
+            @Value("${cancunbooking.archive.retention-days:90}") int retentionDays,
+            @Value("${cancunbooking.archive.chunk-size:1000}") int chunkSize
+    ) {
+        this.reservationRepository = reservationRepository;
+        this.reservationArchiveRepository = reservationArchiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.retentionDays = retentionDays;
+        this.chunkSize = chunkSize;
+
+        this.archivedReservations = Counter.builder(ARCHIVED_METRIC).register(meterRegistry);
+        this.chunkTimer = Timer.builder(CHUNKS_METRIC).register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${cancunbooking.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        archiveReservations();
+    }
+
+    /**
+     * Archives every finished or cancelled reservation that ended before the retention period and returns how
+     * many were moved by this run.
+     */
+    public int archiveReservations() {
+        LocalDate cutoffDate = LocalDate.now(clock).minusDays(retentionDays);
+        LocalDateTime archivedAt = LocalDateTime.now(clock);
+        long startNanos = System.nanoTime();
+        int archived = 0;
+
+        Long afterId = 0L;
+        List<Long> ids;
+        do {
+            ids = reservationRepository.findInactiveReservationIdsEndedBefore(cutoffDate, afterId, Limit.of(chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            archived += archiveChunk(ids, archivedAt);
+            afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == chunkSize);
+
+        log.info("Archived {} reservations ended before {} in {} ms",
+                archived, cutoffDate, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return archived;
+    }
+
+    private int archiveChunk(List<Long> ids, LocalDateTime archivedAt) {
+        long startNanos = System.nanoTime();
+        Integer archived = transactionTemplate.execute(status -> {
+            reservationArchiveRepository.copyFromReservations(ids, archivedAt);
+            return reservationRepository.deleteArchived(ids);
+        });
+        chunkTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        archivedReservations.increment(archived);
+        return archived;
+    }
+}
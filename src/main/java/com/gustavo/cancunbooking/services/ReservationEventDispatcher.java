@@ -0,0 +1,122 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.model.ReservationEvent;
+import com.gustavo.cancunbooking.repositories.ReservationEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Drains the reservation event outbox in the background. Events are read in batches in the order they were written,
+ * handed to every {@link ReservationEventSink} and only then removed, so an event is delivered again if a sink fails
+ * or the application stops halfway. Events written by a transaction that committed after a newer one are still
+ * pending in the outbox and are picked up by the next batch.
+ */
+@Slf4j
+@Component
+public class ReservationEventDispatcher {
+
+    static final String DISPATCHED_METRIC = "cancunbooking.outbox.dispatched";
+    static final String FAILURES_METRIC = "cancunbooking.outbox.failures";
+    static final String LAG_METRIC = "cancunbooking.outbox.lag";
+    static final String OLDEST_PENDING_METRIC = "cancunbooking.outbox.oldest.pending.age";
+
+    private final ReservationEventRepository reservationEventRepository;
+    private final List<ReservationEventSink> sinks;
+    private final Clock clock;
+    private final int batchSize;
+
+    private final Counter dispatchedEvents;
+    private final Counter failures;
+    private final Timer lagTimer;
+    private volatile double oldestPendingAgeSeconds;
+
+    @Autowired
+    public ReservationEventDispatcher(
+            ReservationEventRepository reservationEventRepository,
+            List<ReservationEventSink> sinks,
+            Clock clock,
+            MeterRegistry meterRegistry,
+            @Value("${cancunbooking.outbox.batch-size:200}") int batchSize
+    ) {
+        this.reservationEventRepository = reservationEventRepository;
+        this.sinks = sinks;
+        this.clock = clock;
+        this.batchSize = batchSize;
+
+        this.dispatchedEvents = Counter.builder(DISPATCHED_METRIC).register(meterRegistry);
+        this.failures = Counter.builder(FAILURES_METRIC).register(meterRegistry);
+        this.lagTimer = Timer.builder(LAG_METRIC)
+                .description("Time from writing an event to the outbox until it was handed to the sinks")
+                .register(meterRegistry);
+        Gauge.builder(OLDEST_PENDING_METRIC, this, dispatcher -> dispatcher.oldestPendingAgeSeconds)
+                .description("Age in seconds of the oldest event left in the outbox by the last dispatch")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(
+            initialDelayString = "${cancunbooking.outbox.initial-delay:PT10S}",
+            fixedDelayString = "${cancunbooking.outbox.delay:PT1S}"
+    )
+    public void dispatch() {
+        dispatchPendingEvents();
+    }
+
+    /**
+     * Hands every pending event to the sinks and returns how many were dispatched by this run. A failing sink stops
+     * the run, its batch stays in the outbox and is retried by the next one.
+     */
+    public int dispatchPendingEvents() {
+        int dispatched = 0;
+        List<ReservationEvent> events;
+        do {
+            events = reservationEventRepository.findOldest(Limit.of(batchSize));
+            if (events.isEmpty()) {
+                break;
+            }
+
+            try {
+                for (ReservationEventSink sink : sinks) {
+                    sink.accept(events);
+                }
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Reservation events from {} could not be dispatched, they will be retried", events.get(0).getId(), e);
+                break;
+            }
+
+            reservationEventRepository.deleteDispatched(events.stream().map(ReservationEvent::getId).toList());
+            recordDispatched(events);
+            dispatched += events.size();
+        } while (events.size() == batchSize);
+
+        oldestPendingAgeSeconds = reservationEventRepository.findFirstByOrderByIdAsc()
+                .map(event -> ageOf(event).toMillis() / 1000.0)
+                .orElse(0.0);
+        return dispatched;
+    }
+
+    private void recordDispatched(List<ReservationEvent> events) {
+        for (ReservationEvent event : events) {
+            lagTimer.record(ageOf(event));
+        }
+        dispatchedEvents.increment(events.size());
+    }
+
+    private Duration ageOf(ReservationEvent event) {
+        return Duration.between(event.getCreatedAt(), LocalDateTime.now(clock));
+    }
+}
@@ -0,0 +1,15 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.model.ReservationEvent;
+
+import java.util.List;
+
+/**
+ * Receives the reservation events drained from the outbox, in the order they were written. Delivery is at least
+ * once, the same events are handed again when a sink fails or the application stops before they are removed from
+ * the outbox, so sinks should ignore event ids they already handled.
+ */
+public interface ReservationEventSink {
+
+    void accept(List<ReservationEvent> events);
+}
@@ -0,0 +1,35 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.model.ReservationStatusEnum;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Set;
+
+public interface ReservationExportService {
+    void validatePeriod(LocalDate startDate, LocalDate endDate);
+    long exportReservations(LocalDate startDate, LocalDate endDate, Set<ReservationStatusEnum> statuses, Format format,
+                            OutputStream outputStream) throws IOException;
+
+    enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+}
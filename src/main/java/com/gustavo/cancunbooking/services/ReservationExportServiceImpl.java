@@ -0,0 +1,117 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.exceptions.ReservationException;
+import com.gustavo.cancunbooking.exceptions.ReservationRejectionReasonEnum;
+import com.gustavo.cancunbooking.model.ReservationStatusEnum;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.projections.ReservationExportRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Writes the reservations of a period to a stream one row at a time. Rows are read from a forward-only cursor as
+ * {@link ReservationExportRow} projections, which never enter the persistence context, and every row is written
+ * before the next one is read, so memory use does not depend on how many reservations are exported.
+ */
+@Service
+public class ReservationExportServiceImpl implements ReservationExportService {
+
+    static final String ROWS_METRIC = "cancunbooking.export.rows";
+    static final String EXPORTS_METRIC = "cancunbooking.export.exports";
+
+    static final String CSV_HEADER = "reservation_id,user_id,room_id,start_date,end_date,status\n";
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final ReservationRepository reservationRepository;
+
+    private final Map<Format, Counter> exportedRows = new EnumMap<>(Format.class);
+    private final Map<Format, Timer> exportTimers = new EnumMap<>(Format.class);
+
+    @Autowired
+    public ReservationExportServiceImpl(ReservationRepository reservationRepository, MeterRegistry meterRegistry) {
+        this.reservationRepository = reservationRepository;
+
+        for (Format format : Format.values()) {
+            String tagValue = format.name().toLowerCase(Locale.ROOT);
+            exportedRows.put(format, Counter.builder(ROWS_METRIC).tag("format", tagValue).register(meterRegistry));
+            exportTimers.put(format, Timer.builder(EXPORTS_METRIC).tag("format", tagValue).register(meterRegistry));
+        }
+    }
+
+    @Override
+    public void validatePeriod(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new ReservationException(ReservationRejectionReasonEnum.START_DATE_AFTER_END_DATE, "The start date cannot be after the end date");
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportReservations(LocalDate startDate, LocalDate endDate, Set<ReservationStatusEnum> statuses, Format format,
+                                   OutputStream outputStream) throws IOException {
+        validatePeriod(startDate, endDate);
+
+        long startNanos = System.nanoTime();
+        Set<ReservationStatusEnum> exportedStatuses = statuses == null || statuses.isEmpty()
+                ? EnumSet.allOf(ReservationStatusEnum.class)
+                : statuses;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+        }
+
+        long rows = 0;
+        StringBuilder line = new StringBuilder(128);
+        try (Stream<ReservationExportRow> reservations = reservationRepository.streamForExport(startDate, endDate, exportedStatuses)) {
+            for (var iterator = reservations.iterator(); iterator.hasNext(); rows++) {
+                line.setLength(0);
+                appendRow(line, iterator.next(), format);
+                writer.append(line);
+            }
+        }
+        writer.flush();
+
+        exportedRows.get(format).increment(rows);
+        exportTimers.get(format).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        return rows;
+    }
+
+    // every value is a number, an ISO date or a status name, so nothing has to be quoted or escaped
+    private static void appendRow(StringBuilder line, ReservationExportRow row, Format format) {
+        if (format == Format.CSV) {
+            line.append(row.reservationId()).append(',')
+                    .append(row.userId()).append(',')
+                    .append(row.roomId()).append(',')
+                    .append(row.startDate()).append(',')
+                    .append(row.endDate()).append(',')
+                    .append(row.status().name()).append('\n');
+        } else {
+            line.append("{\"reservationId\":").append(row.reservationId())
+                    .append(",\"userId\":").append(row.userId())
+                    .append(",\"roomId\":").append(row.roomId())
+                    .append(",\"startDate\":\"").append(row.startDate())
+                    .append("\",\"endDate\":\"").append(row.endDate())
+                    .append("\",\"status\":\"").append(row.status().name()).append("\"}\n");
+        }
+    }
+}
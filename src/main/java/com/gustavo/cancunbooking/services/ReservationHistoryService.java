@@ -0,0 +1,9 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.controllers.response.ReservationHistoryPageDTO;
+
+import java.time.LocalDate;
+
+public interface ReservationHistoryService {
+    ReservationHistoryPageDTO findReservationsOfUser(Long userId, LocalDate afterStartDate, Long afterId, int size);
+}
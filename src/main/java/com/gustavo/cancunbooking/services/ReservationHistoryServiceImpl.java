@@ -0,0 +1,84 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.controllers.response.ReservationHistoryPageDTO;
+import com.gustavo.cancunbooking.exceptions.ReservationException;
+import com.gustavo.cancunbooking.exceptions.ReservationRejectionReasonEnum;
+import com.gustavo.cancunbooking.repositories.ReservationArchiveRepository;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.UserRepository;
+import com.gustavo.cancunbooking.repositories.projections.ReservationHistoryEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Pages through the reservations of a user ordered by start date and id. A page continues after the start date and
+ * id of the last reservation of the previous one instead of skipping an offset, so with the
+ * IDX_RESERVATION_USER_START_ID index every page is a short range scan however deep the client scrolls.
+ * <p>
+ * Archived reservations keep their id and are still part of the history. Every page seeks the same position in
+ * RESERVATION_ARCHIVE, on IDX_RESERVATION_ARCHIVE_USER_START_ID, and merges both scans.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ReservationHistoryServiceImpl implements ReservationHistoryService {
+
+    public static final int MAXIMUM_PAGE_SIZE = 200;
+
+    private static final Comparator<ReservationHistoryEntry> HISTORY_ORDER =
+            Comparator.comparing(ReservationHistoryEntry::startDate).thenComparing(ReservationHistoryEntry::reservationId);
+
+    private final ReservationRepository reservationRepository;
+    private final ReservationArchiveRepository reservationArchiveRepository;
+    private final UserRepository userRepository;
+
+    @Autowired
+    public ReservationHistoryServiceImpl(
+            ReservationRepository reservationRepository,
+            ReservationArchiveRepository reservationArchiveRepository,
+            UserRepository userRepository
+    ) {
+        this.reservationRepository = reservationRepository;
+        this.reservationArchiveRepository = reservationArchiveRepository;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public ReservationHistoryPageDTO findReservationsOfUser(Long userId, LocalDate afterStartDate, Long afterId, int size) {
+        if (size < 1 || size > MAXIMUM_PAGE_SIZE) {
+            throw new ReservationException(ReservationRejectionReasonEnum.INVALID_PAGE, "The size must be between 1 and 200");
+        }
+        if ((afterStartDate == null) != (afterId == null)) {
+            throw new ReservationException(ReservationRejectionReasonEnum.INVALID_CURSOR, "The after start date and after id must be provided together");
+        }
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new ReservationException(ReservationRejectionReasonEnum.USER_NOT_FOUND, "No user found with the provided id");
+        }
+
+        // one more row than the page tells whether there is a next page without counting the rows
+        Limit limit = Limit.of(size + 1);
+        List<ReservationHistoryEntry> current = afterStartDate == null
+                ? reservationRepository.findHistoryOfUser(userId, limit)
+                : reservationRepository.findHistoryOfUserAfter(userId, afterStartDate, afterId, limit);
+        List<ReservationHistoryEntry> archived = afterStartDate == null
+                ? reservationArchiveRepository.findHistoryOfUser(userId, limit)
+                : reservationArchiveRepository.findHistoryOfUserAfter(userId, afterStartDate, afterId, limit);
+        List<ReservationHistoryEntry> reservations = Stream.concat(current.stream(), archived.stream())
+                .sorted(HISTORY_ORDER)
+                .limit(size + 1)
+                .toList();
+        if (reservations.size() <= size) {
+            return new ReservationHistoryPageDTO(reservations, null, null);
+        }
+
+        List<ReservationHistoryEntry> page = reservations.subList(0, size);
+        ReservationHistoryEntry last = page.get(size - 1);
+        return new ReservationHistoryPageDTO(page, last.startDate(), last.reservationId());
+    }
+}
@@ -0,0 +1,219 @@
+package com.gustavo.cancunbooking.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gustavo.cancunbooking.controllers.request.ReservationRequestDTO;
+import com.gustavo.cancunbooking.controllers.response.ReservationSuccessResponseDTO;
+import com.gustavo.cancunbooking.exceptions.ReservationConflictException;
+import com.gustavo.cancunbooking.exceptions.ReservationException;
+import com.gustavo.cancunbooking.exceptions.ReservationRejectionReasonEnum;
+import com.gustavo.cancunbooking.model.IdempotencyRecord;
+import com.gustavo.cancunbooking.repositories.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Places reservations at most once per Idempotency-Key. The response of the first request is kept in a bounded
+ * in-memory store that evicts keys after the TTL, and a retry with the same key gets that response back without
+ * going through the booking path again. Concurrent requests with the same key wait up to the wait timeout for the
+ * first one to finish and are rejected as a conflict after it, and a key whose reservation was rejected can be
+ * retried. Placements still in progress are tracked apart from the bounded store until they finish, so a full store
+ * never evicts a key whose reservation is being placed.
+ * <p>
+ * With the persistent store enabled the key is also saved in the same transaction as the reservation, so retries
+ * are replayed after a restart or by another node. When two nodes place the same key at once, the one that saves
+ * it second rolls its reservation back and replays the first one.
+ */
+@Service
+public class ReservationIdempotencyService {
+
+    public static final int MAXIMUM_KEY_LENGTH = 255;
+
+    private final ReservationService reservationService;
+    private final ReservationMetrics reservationMetrics;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final Duration ttl;
+    private final long waitTimeoutNanos;
+    private final boolean persistent;
+
+    private final Cache<String, ReservationSuccessResponseDTO> responses;
+    private final Map<String, CompletableFuture<ReservationSuccessResponseDTO>> placements = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReservationIdempotencyService(
+            ReservationService reservationService,
+            ReservationMetrics reservationMetrics,
+            IdempotencyRecordRepository idempotencyRecordRepository,
+            PlatformTransactionManager transactionManager,
+            Clock clock,
+            @Value("${cancunbooking.idempotency.maximum-size:100000}") long maximumSize,
+            @Value("${cancunbooking.idempotency.ttl:PT24H}") Duration ttl,
+            @Value("${cancunbooking.idempotency.wait-timeout:PT10S}") Duration waitTimeout,
+            @Value("${cancunbooking.idempotency.persistent:false}") boolean persistent
+    ) {
+        this.reservationService = reservationService;
+        this.reservationMetrics = reservationMetrics;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.ttl = ttl;
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+        this.persistent = persistent;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public IdempotentReservation placeReservation(String idempotencyKey, ReservationRequestDTO reservationRequest) {
+        validateIdempotencyKey(idempotencyKey);
+
+        while (true) {
+            ReservationSuccessResponseDTO response = responses.getIfPresent(idempotencyKey);
+            if (response != null) {
+                return replay(response, reservationRequest);
+            }
+
+            var placement = new CompletableFuture<ReservationSuccessResponseDTO>();
+            CompletableFuture<ReservationSuccessResponseDTO> existing = placements.putIfAbsent(idempotencyKey, placement);
+            if (existing == null) {
+                // a placement that finished after the lookup above has already stored its response
+                response = responses.getIfPresent(idempotencyKey);
+                if (response != null) {
+                    placements.remove(idempotencyKey, placement);
+                    placement.complete(response);
+                    return replay(response, reservationRequest);
+                }
+                return place(idempotencyKey, reservationRequest, placement);
+            }
+
+            try {
+                return replay(existing.get(waitTimeoutNanos, TimeUnit.NANOSECONDS), reservationRequest);
+            } catch (ExecutionException e) {
+                // the first request was rejected and its key released, so this one places the reservation itself
+            } catch (TimeoutException e) {
+                throw rejected(new ReservationConflictException(ReservationRejectionReasonEnum.IDEMPOTENCY_KEY_IN_PROGRESS, "A request with the same idempotency key is still being processed"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw rejected(new ReservationConflictException(ReservationRejectionReasonEnum.IDEMPOTENCY_KEY_IN_PROGRESS, "A request with the same idempotency key is still being processed"));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cancunbooking.idempotency.purge-delay:PT1H}")
+    public void purgeExpiredRecords() {
+        if (persistent) {
+            idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now(clock).minus(ttl));
+        }
+    }
+
+    private IdempotentReservation place(String idempotencyKey, ReservationRequestDTO reservationRequest,
+                                        CompletableFuture<ReservationSuccessResponseDTO> placement) {
+        try {
+            // looked up in a read-write transaction, so a read replica never hides a key another node just saved
+            Optional<ReservationSuccessResponseDTO> persisted = persistent
+                    ? transactionTemplate.execute(status -> idempotencyRecordRepository.findById(idempotencyKey).map(ReservationIdempotencyService::toResponse))
+                    : Optional.empty();
+            if (persisted.isPresent()) {
+                complete(idempotencyKey, placement, persisted.get());
+                return replay(persisted.get(), reservationRequest);
+            }
+
+            if (!persistent) {
+                ReservationSuccessResponseDTO response = reservationService.placeReservation(reservationRequest);
+                complete(idempotencyKey, placement, response);
+                return new IdempotentReservation(response, false);
+            }
+
+            ReservationSuccessResponseDTO response;
+            try {
+                response = transactionTemplate.execute(status -> placeAndRecord(idempotencyKey, reservationRequest));
+            } catch (DataIntegrityViolationException e) {
+                // another node saved the key first and this reservation was rolled back, so its response is replayed
+                ReservationSuccessResponseDTO saved = transactionTemplate.execute(status -> idempotencyRecordRepository.findById(idempotencyKey)
+                        .map(ReservationIdempotencyService::toResponse)
+                        .orElseThrow(() -> e));
+                complete(idempotencyKey, placement, saved);
+                return replay(saved, reservationRequest);
+            }
+            complete(idempotencyKey, placement, response);
+            return new IdempotentReservation(response, false);
+        } catch (RuntimeException e) {
+            placements.remove(idempotencyKey, placement);
+            placement.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // the response is stored before the placement is released, so a request arriving in between finds one of them
+    private void complete(String idempotencyKey, CompletableFuture<ReservationSuccessResponseDTO> placement,
+                          ReservationSuccessResponseDTO response) {
+        responses.put(idempotencyKey, response);
+        placements.remove(idempotencyKey, placement);
+        placement.complete(response);
+    }
+
+    private ReservationSuccessResponseDTO placeAndRecord(String idempotencyKey, ReservationRequestDTO reservationRequest) {
+        ReservationSuccessResponseDTO response = reservationService.placeReservation(reservationRequest);
+
+        var idempotencyRecord = new IdempotencyRecord();
+        idempotencyRecord.setIdempotencyKey(idempotencyKey);
+        idempotencyRecord.setReservationId(response.getReservationId());
+        idempotencyRecord.setUserId(response.getUserId());
+        idempotencyRecord.setRoomId(response.getRoomId());
+        idempotencyRecord.setStartDate(response.getStartDate());
+        idempotencyRecord.setEndDate(response.getEndDate());
+        idempotencyRecord.setCreatedAt(LocalDateTime.now(clock));
+        // flushed here so a key saved by another node fails the insert before the reservation commits
+        idempotencyRecordRepository.saveAndFlush(idempotencyRecord);
+        return response;
+    }
+
+    private IdempotentReservation replay(ReservationSuccessResponseDTO response, ReservationRequestDTO reservationRequest) {
+        if (!Objects.equals(response.getUserId(), reservationRequest.getUserId())
+                || !Objects.equals(response.getRoomId(), reservationRequest.getRoomId())
+                || !Objects.equals(response.getStartDate(), reservationRequest.getStartDate())
+                || !Objects.equals(response.getEndDate(), reservationRequest.getEndDate())) {
+            throw rejected(new ReservationException(ReservationRejectionReasonEnum.IDEMPOTENCY_KEY_REUSED, "The idempotency key was already used for a different reservation"));
+        }
+        return new IdempotentReservation(response, true);
+    }
+
+    private static ReservationSuccessResponseDTO toResponse(IdempotencyRecord idempotencyRecord) {
+        return new ReservationSuccessResponseDTO(idempotencyRecord.getReservationId(), idempotencyRecord.getUserId(),
+                idempotencyRecord.getRoomId(), idempotencyRecord.getStartDate(), idempotencyRecord.getEndDate());
+    }
+
+    private void validateIdempotencyKey(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAXIMUM_KEY_LENGTH) {
+            throw rejected(new ReservationException(ReservationRejectionReasonEnum.IDEMPOTENCY_KEY_INVALID, "The idempotency key must have between 1 and 255 characters"));
+        }
+    }
+
+    // rejections of the booking itself are counted by the reservation service, these are the ones of the key
+    private ReservationException rejected(ReservationException exception) {
+        reservationMetrics.recordRejection(ReservationMetrics.Operation.PLACE, exception);
+        return exception;
+    }
+
+    public record IdempotentReservation(ReservationSuccessResponseDTO response, boolean isReplayed) { }
+}
@@ -0,0 +1,102 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves ACTIVE reservations whose end date has passed to FINISHED. Expired reservations are walked by id in
+ * batches, and every batch is finished by a single conditional update in its own short transaction, so rows are
+ * never locked for long and several nodes can sweep at the same time without finishing a reservation twice.
+ */
+@Slf4j
+@Component
+public class ReservationLifecycleSweeper {
+
+    static final String FINISHED_METRIC = "cancunbooking.lifecycle.finished";
+    static final String SWEEPS_METRIC = "cancunbooking.lifecycle.sweeps";
+    static final String BATCHES_METRIC = "cancunbooking.lifecycle.batches";
+    static final String THROUGHPUT_METRIC = "cancunbooking.lifecycle.throughput";
+
+    private final ReservationRepository reservationRepository;
+    private final Clock clock;
+    private final int batchSize;
+
+    private final Counter finishedReservations;
+    private final Timer sweepTimer;
+    private final Timer batchTimer;
+    private volatile double lastSweepThroughput;
+
+    @Autowired
+    public ReservationLifecycleSweeper(
+            ReservationRepository reservationRepository,
+            Clock clock,
+            MeterRegistry meterRegistry,
+            @Value("${cancunbooking.lifecycle.batch-size:500}") int batchSize
+    ) {
+        this.reservationRepository = reservationRepository;
+        this.clock = clock;
+        this.batchSize = batchSize;
+
+        this.finishedReservations = Counter.builder(FINISHED_METRIC).register(meterRegistry);
+        this.sweepTimer = Timer.builder(SWEEPS_METRIC).register(meterRegistry);
+        this.batchTimer = Timer.builder(BATCHES_METRIC).register(meterRegistry);
+        Gauge.builder(THROUGHPUT_METRIC, this, sweeper -> sweeper.lastSweepThroughput)
+                .description("Reservations finished per second by the last sweep")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(
+            initialDelayString = "${cancunbooking.lifecycle.initial-delay:PT1M}",
+            fixedDelayString = "${cancunbooking.lifecycle.delay:PT1H}"
+    )
+    public void sweep() {
+        finishExpiredReservations();
+    }
+
+    /**
+     * Finishes every ACTIVE reservation that ended before today and returns how many were finished by this run.
+     */
+    public int finishExpiredReservations() {
+        LocalDate today = LocalDate.now(clock);
+        long startNanos = System.nanoTime();
+        int finished = 0;
+        int batches = 0;
+
+        Long afterId = 0L;
+        List<Long> ids;
+        do {
+            ids = reservationRepository.findActiveReservationIdsEndedBefore(today, afterId, Limit.of(batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            long batchStartNanos = System.nanoTime();
+            finished += reservationRepository.finishActiveReservationsEndedBefore(ids, today);
+            batchTimer.record(System.nanoTime() - batchStartNanos, TimeUnit.NANOSECONDS);
+            batches++;
+            afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == batchSize);
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        sweepTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        finishedReservations.increment(finished);
+        lastSweepThroughput = finished * 1e9 / Math.max(elapsedNanos, 1);
+        log.info("Finished {} reservations ended before {} in {} batches and {} ms ({} reservations/s)",
+                finished, today, batches, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), Math.round(lastSweepThroughput));
+        return finished;
+    }
+}
@@ -0,0 +1,135 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.exceptions.ReservationException;
+import com.gustavo.cancunbooking.exceptions.ReservationRejectionReasonEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters of the reservation operations. Every meter is registered up front and durations are
+ * recorded from {@link System#nanoTime()} readings, so recording does not allocate and can stay on in production.
+ */
+@Component
+public class ReservationMetrics {
+
+    static final String OPERATIONS_METRIC = "cancunbooking.reservation.operations";
+    static final String VALIDATION_METRIC = "cancunbooking.reservation.validation";
+    static final String REJECTIONS_METRIC = "cancunbooking.reservation.rejections";
+
+    enum Operation { PLACE, PLACE_BATCH, UPDATE, CANCEL }
+
+    enum ValidationStep { START_AND_END_DATE_NOT_EQUAL, START_DATE_NOT_AFTER_END_DATE, DURATION, MAXIMUM_START_DATE, STATUS_ACTIVE }
+
+    private final Map<Operation, Timer> successTimers = new EnumMap<>(Operation.class);
+    private final Map<Operation, Timer> rejectedTimers = new EnumMap<>(Operation.class);
+    private final Map<Operation, Timer> errorTimers = new EnumMap<>(Operation.class);
+    private final Map<Operation, Map<ReservationRejectionReasonEnum, Counter>> rejectionCounters = new EnumMap<>(Operation.class);
+    private final Map<ValidationStep, Timer> validationStepTimers = new EnumMap<>(ValidationStep.class);
+    private final boolean validationStepTimersEnabled;
+
+    @Autowired
+    public ReservationMetrics(
+            MeterRegistry meterRegistry,
+            @Value("${cancunbooking.metrics.validation-step-timers.enabled:false}") boolean validationStepTimersEnabled
+    ) {
+        this.validationStepTimersEnabled = validationStepTimersEnabled;
+
+        for (Operation operation : Operation.values()) {
+            successTimers.put(operation, operationTimer(meterRegistry, operation, "success"));
+            rejectedTimers.put(operation, operationTimer(meterRegistry, operation, "rejected"));
+            errorTimers.put(operation, operationTimer(meterRegistry, operation, "error"));
+
+            Map<ReservationRejectionReasonEnum, Counter> countersByReason = new EnumMap<>(ReservationRejectionReasonEnum.class);
+            for (ReservationRejectionReasonEnum reason : ReservationRejectionReasonEnum.values()) {
+                countersByReason.put(reason, rejectionCounter(meterRegistry, operation, reason));
+            }
+            rejectionCounters.put(operation, countersByReason);
+        }
+
+        if (validationStepTimersEnabled) {
+            for (ValidationStep step : ValidationStep.values()) {
+                validationStepTimers.put(step, Timer.builder(VALIDATION_METRIC)
+                        .tag("step", tagValue(step))
+                        .register(meterRegistry));
+            }
+        }
+    }
+
+    void recordSuccess(Operation operation, long startNanos) {
+        successTimers.get(operation).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordFailure(Operation operation, RuntimeException exception, long startNanos) {
+        recordFailureTime(operation, exception, startNanos);
+        if (exception instanceof ReservationException reservationException) {
+            recordRejection(operation, reservationException);
+        }
+    }
+
+    /**
+     * Records how long a failed operation took without counting a rejection, for operations that count
+     * the rejections of their items themselves.
+     */
+    void recordFailureTime(Operation operation, RuntimeException exception, long startNanos) {
+        Timer timer = exception instanceof ReservationException ? rejectedTimers.get(operation) : errorTimers.get(operation);
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records an operation that returned but whose transaction did not commit.
+     */
+    void recordError(Operation operation, long startNanos) {
+        errorTimers.get(operation).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordRejection(Operation operation, ReservationException exception) {
+        rejectionCounters.get(operation).get(exception.getReason()).increment();
+    }
+
+    /**
+     * Starts timing a validation step, returns 0 without reading the clock when step timers are disabled.
+     */
+    long startValidationStep() {
+        return validationStepTimersEnabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records a passed validation step and returns the start of the next one.
+     */
+    long endValidationStep(ValidationStep step, long startNanos) {
+        if (!validationStepTimersEnabled) {
+            return 0L;
+        }
+
+        long nowNanos = System.nanoTime();
+        validationStepTimers.get(step).record(nowNanos - startNanos, TimeUnit.NANOSECONDS);
+        return nowNanos;
+    }
+
+    private static Timer operationTimer(MeterRegistry meterRegistry, Operation operation, String outcome) {
+        return Timer.builder(OPERATIONS_METRIC)
+                .tag("operation", tagValue(operation))
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, Operation operation, ReservationRejectionReasonEnum reason) {
+        return Counter.builder(REJECTIONS_METRIC)
+                .tag("operation", tagValue(operation))
+                .tag("reason", tagValue(reason))
+                .register(meterRegistry);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
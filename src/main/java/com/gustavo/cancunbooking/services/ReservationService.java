@@ -1,11 +1,16 @@
 package com.gustavo.cancunbooking.services;
 
+import com.gustavo.cancunbooking.controllers.request.ReservationBatchRequestDTO;
 import com.gustavo.cancunbooking.controllers.request.ReservationRequestDTO;
 import com.gustavo.cancunbooking.controllers.request.ReservationUpdateRequestDTO;
+import com.gustavo.cancunbooking.controllers.response.ReservationBatchResultDTO;
 import com.gustavo.cancunbooking.controllers.response.ReservationSuccessResponseDTO;
 
+import java.util.List;
+
 public interface ReservationService {
     ReservationSuccessResponseDTO placeReservation(ReservationRequestDTO reservationRequest);
+    List<ReservationBatchResultDTO> placeReservations(ReservationBatchRequestDTO reservationBatchRequest);
     ReservationSuccessResponseDTO updateReservation(ReservationUpdateRequestDTO reservationUpdateRequest);
     void cancelReservation(Long reservationId);
 }
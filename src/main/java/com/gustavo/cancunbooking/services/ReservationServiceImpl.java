@@ -1,24 +1,39 @@
 package com.gustavo.cancunbooking.services;
 
+import com.gustavo.cancunbooking.controllers.request.ReservationBatchRequestDTO;
 import com.gustavo.cancunbooking.controllers.request.ReservationRequestDTO;
 import com.gustavo.cancunbooking.controllers.request.ReservationUpdateRequestDTO;
+import com.gustavo.cancunbooking.controllers.response.ReservationBatchResultDTO;
 import com.gustavo.cancunbooking.controllers.response.ReservationSuccessResponseDTO;
 import com.gustavo.cancunbooking.exceptions.*;
 import com.gustavo.cancunbooking.model.Reservation;
+import com.gustavo.cancunbooking.model.ReservationEvent;
+import com.gustavo.cancunbooking.model.ReservationEventTypeEnum;
 import com.gustavo.cancunbooking.model.ReservationStatusEnum;
 import com.gustavo.cancunbooking.model.Room;
 import com.gustavo.cancunbooking.model.User;
+import com.gustavo.cancunbooking.repositories.ReservationEventRepository;
 import com.gustavo.cancunbooking.repositories.ReservationRepository;
 import com.gustavo.cancunbooking.repositories.RoomRepository;
 import com.gustavo.cancunbooking.repositories.UserRepository;
+import com.gustavo.cancunbooking.services.ReservationMetrics.Operation;
+import com.gustavo.cancunbooking.services.ReservationMetrics.ValidationStep;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Clock;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ReservationServiceImpl implements ReservationService {
@@ -26,145 +41,287 @@ public class ReservationServiceImpl implements ReservationService {
     public static final int MAXIMUM_RESERVATION_DAS_ALLOWED = 3;
     public static final int MAXIMUM_FUTURE_DAYS_ALLOWED = 30;
 
+    private static final String ROOM_NOT_FOUND_MESSAGE = "No room found with the provided id";
+    private static final String USER_NOT_FOUND_MESSAGE = "No user found with the provided id";
+
     private final ReservationRepository reservationRepository;
     private final RoomRepository roomRepository;
     private final UserRepository userRepository;
+    private final ReservationEventRepository reservationEventRepository;
 
-    private final RoomAvailabilityService roomAvailabilityService;
+    private final RoomBookingCoordinator roomBookingCoordinator;
+    private final ConflictRetryExecutor conflictRetryExecutor;
+    private final ReservationMetrics reservationMetrics;
     private final Clock clock;
     @Autowired
     public ReservationServiceImpl(
             ReservationRepository reservationRepository,
             RoomRepository roomRepository,
             UserRepository userRepository,
-            RoomAvailabilityService roomAvailabilityService,
+            ReservationEventRepository reservationEventRepository,
+            RoomBookingCoordinator roomBookingCoordinator,
+            ConflictRetryExecutor conflictRetryExecutor,
+            ReservationMetrics reservationMetrics,
             Clock clock
     ) {
         this.reservationRepository = reservationRepository;
         this.roomRepository = roomRepository;
         this.userRepository = userRepository;
-        this.roomAvailabilityService = roomAvailabilityService;
+        this.reservationEventRepository = reservationEventRepository;
+        this.roomBookingCoordinator = roomBookingCoordinator;
+        this.conflictRetryExecutor = conflictRetryExecutor;
+        this.reservationMetrics = reservationMetrics;
         this.clock = clock;
     }
 
     @Override
     @Transactional
     public ReservationSuccessResponseDTO placeReservation(ReservationRequestDTO reservationRequest) {
+        long startNanos = System.nanoTime();
+        try {
+            ReservationSuccessResponseDTO response = createReservation(reservationRequest);
+            recordSuccessOnCommit(Operation.PLACE, startNanos);
+            return response;
+        } catch (RuntimeException e) {
+            reservationMetrics.recordFailure(Operation.PLACE, e, startNanos);
+            throw e;
+        }
+    }
+
+    @Override
+    @Transactional
+    public List<ReservationBatchResultDTO> placeReservations(ReservationBatchRequestDTO reservationBatchRequest) {
+        long startNanos = System.nanoTime();
+        try {
+            List<ReservationBatchResultDTO> results = createReservations(
+                    reservationBatchRequest.getReservations(), reservationBatchRequest.isAllOrNothing());
+            recordSuccessOnCommit(Operation.PLACE_BATCH, startNanos);
+            return results;
+        } catch (RuntimeException e) {
+            reservationMetrics.recordFailureTime(Operation.PLACE_BATCH, e, startNanos);
+            throw e;
+        }
+    }
+
+    // update and cancel run each attempt in its own transaction, so they are retried if the reservation changes meanwhile
+    @Override
+    public ReservationSuccessResponseDTO updateReservation(ReservationUpdateRequestDTO reservationUpdateRequest) {
+        long startNanos = System.nanoTime();
+        try {
+            ReservationSuccessResponseDTO response = conflictRetryExecutor.execute(Operation.UPDATE,
+                    () -> changeReservation(reservationUpdateRequest));
+            reservationMetrics.recordSuccess(Operation.UPDATE, startNanos);
+            return response;
+        } catch (RuntimeException e) {
+            reservationMetrics.recordFailure(Operation.UPDATE, e, startNanos);
+            throw e;
+        }
+    }
+
+    @Override
+    public void cancelReservation(Long reservationId) {
+        long startNanos = System.nanoTime();
+        try {
+            conflictRetryExecutor.execute(Operation.CANCEL, () -> cancel(reservationId));
+            reservationMetrics.recordSuccess(Operation.CANCEL, startNanos);
+        } catch (RuntimeException e) {
+            reservationMetrics.recordFailure(Operation.CANCEL, e, startNanos);
+            throw e;
+        }
+    }
+
+    // placements commit after they return, possibly with a caller's transaction, so a failing commit is recorded as an error
+    private void recordSuccessOnCommit(Operation operation, long startNanos) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reservationMetrics.recordSuccess(operation, startNanos);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    reservationMetrics.recordSuccess(operation, startNanos);
+                } else {
+                    reservationMetrics.recordError(operation, startNanos);
+                }
+            }
+        });
+    }
+
+    private ReservationSuccessResponseDTO createReservation(ReservationRequestDTO reservationRequest) {
         validateNewReservationRequest(reservationRequest);
 
+        Room room = roomRepository.findById(reservationRequest.getRoomId())
+                .orElseThrow(() -> new ReservationException(ReservationRejectionReasonEnum.ROOM_NOT_FOUND, ROOM_NOT_FOUND_MESSAGE));
+        User user = userRepository.findById(reservationRequest.getUserId())
+                .orElseThrow(() -> new ReservationException(ReservationRejectionReasonEnum.USER_NOT_FOUND, USER_NOT_FOUND_MESSAGE));
+
+        Reservation reservation = bookRoom(reservationRequest, room, user);
+        reservationRepository.save(reservation);
+        reservationEventRepository.save(toEvent(ReservationEventTypeEnum.PLACED, reservation));
+        return new ReservationSuccessResponseDTO(reservation);
+    }
+
+    private List<ReservationBatchResultDTO> createReservations(List<ReservationRequestDTO> reservationRequests, boolean allOrNothing) {
+        // rooms and users of the whole batch are loaded with one query each
+        Map<Long, Room> rooms = roomRepository.findAllById(reservationRequests.stream().map(ReservationRequestDTO::getRoomId).distinct().toList())
+                .stream().collect(Collectors.toMap(Room::getId, Function.identity()));
+        Map<Long, User> users = userRepository.findAllById(reservationRequests.stream().map(ReservationRequestDTO::getUserId).distinct().toList())
+                .stream().collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<Reservation> reservations = new ArrayList<>(reservationRequests.size());
+        String[] errorMessages = new String[reservationRequests.size()];
+        for (int i = 0; i < reservationRequests.size(); i++) {
+            ReservationRequestDTO reservationRequest = reservationRequests.get(i);
+            try {
+                validateNewReservationRequest(reservationRequest);
+                Room room = Optional.ofNullable(rooms.get(reservationRequest.getRoomId()))
+                        .orElseThrow(() -> new ReservationException(ReservationRejectionReasonEnum.ROOM_NOT_FOUND, ROOM_NOT_FOUND_MESSAGE));
+                User user = Optional.ofNullable(users.get(reservationRequest.getUserId()))
+                        .orElseThrow(() -> new ReservationException(ReservationRejectionReasonEnum.USER_NOT_FOUND, USER_NOT_FOUND_MESSAGE));
+                reservations.add(bookRoom(reservationRequest, room, user));
+            } catch (ReservationException e) {
+                reservationMetrics.recordRejection(Operation.PLACE_BATCH, e);
+                if (allOrNothing) {
+                    // rolling back the transaction gives back the days claimed for the previous reservations
+                    throw new ReservationException(e.getReason(), "Reservation at position " + i + " was rejected: " + e.getMessage());
+                }
+                errorMessages[i] = e.getMessage();
+            }
+        }
+
+        // ids come from a pooled sequence, so the inserts are sent to the database in JDBC batches
+        reservationRepository.saveAll(reservations);
+        reservationEventRepository.saveAll(reservations.stream().map(reservation -> toEvent(ReservationEventTypeEnum.PLACED, reservation)).toList());
+
+        List<ReservationBatchResultDTO> results = new ArrayList<>(reservationRequests.size());
+        int placed = 0;
+        for (String errorMessage : errorMessages) {
+            results.add(errorMessage == null
+                    ? new ReservationBatchResultDTO(true, new ReservationSuccessResponseDTO(reservations.get(placed++)), null)
+                    : new ReservationBatchResultDTO(false, null, errorMessage));
+        }
+        return results;
+    }
+
+    private Reservation bookRoom(ReservationRequestDTO reservationRequest, Room room, User user) {
         Reservation reservation = new Reservation();
         reservation.setStartDate(reservationRequest.getStartDate());
         reservation.setEndDate(reservationRequest.getEndDate());
         reservation.setStatus(ReservationStatusEnum.ACTIVE);
-
-        Room room = roomRepository.findById(reservationRequest.getRoomId())
-                .orElseThrow(() -> new ReservationException("No room found with the provided id"));
         reservation.setRoom(room);
-
-        User user = userRepository.findById(reservationRequest.getUserId())
-                .orElseThrow(() -> new ReservationException("No user found with the provided id"));
         reservation.setUser(user);
 
-        reservationRepository.save(reservation);
-        return new ReservationSuccessResponseDTO(reservation);
+        roomBookingCoordinator.claim(room.getId(), reservation.getStartDate(), reservation.getEndDate());
+        return reservation;
     }
 
-    @Override
-    @Transactional
-    public ReservationSuccessResponseDTO updateReservation(ReservationUpdateRequestDTO reservationUpdateRequest) {
+    private ReservationSuccessResponseDTO changeReservation(ReservationUpdateRequestDTO reservationUpdateRequest) {
         Reservation reservation = getReservation(reservationUpdateRequest.getReservationId());
         validateReservationUpdateRequest(reservationUpdateRequest, reservation);
 
+        roomBookingCoordinator.reclaim(reservation.getRoom().getId(),
+                reservation.getStartDate(), reservation.getEndDate(),
+                reservationUpdateRequest.getStartDate(), reservationUpdateRequest.getEndDate());
+
         reservation.setStartDate(reservationUpdateRequest.getStartDate());
         reservation.setEndDate(reservationUpdateRequest.getEndDate());
 
         reservationRepository.save(reservation);
+        reservationEventRepository.save(toEvent(ReservationEventTypeEnum.UPDATED, reservation));
         return new ReservationSuccessResponseDTO(reservation);
     }
 
-    @Override
-    @Transactional
-    public void cancelReservation(Long reservationId) {
+    private Reservation cancel(Long reservationId) {
         Reservation reservation = getReservation(reservationId);
 
         validateReservationStatusIsActive(reservation.getStatus());
 
         reservation.setStatus(ReservationStatusEnum.CANCELLED);
         reservationRepository.save(reservation);
+        reservationEventRepository.save(toEvent(ReservationEventTypeEnum.CANCELLED, reservation));
+        roomBookingCoordinator.release(reservation.getRoom().getId(), reservation.getStartDate(), reservation.getEndDate());
+        return reservation;
+    }
+
+    // written in the transaction of the change, so an event exists exactly when the change was committed
+    private ReservationEvent toEvent(ReservationEventTypeEnum type, Reservation reservation) {
+        ReservationEvent event = new ReservationEvent();
+        event.setType(type);
+        event.setReservationId(reservation.getId());
+        event.setUserId(reservation.getUser().getId());
+        event.setRoomId(reservation.getRoom().getId());
+        event.setStartDate(reservation.getStartDate());
+        event.setEndDate(reservation.getEndDate());
+        event.setCreatedAt(LocalDateTime.now(clock));
+        return event;
     }
 
     private Reservation getReservation(Long reservationId) {
-        Optional<Reservation> reservationOpt = reservationRepository.findById(reservationId);
+        Optional<Reservation> reservationOpt = reservationRepository.findWithRoomAndUserById(reservationId);
         return reservationOpt.orElseThrow(
-                () -> new ReservationException("No reservation found with the given id"));
+                () -> new ReservationException(ReservationRejectionReasonEnum.RESERVATION_NOT_FOUND, "No reservation found with the given id"));
     }
 
-    private void validateNewReservationRequest(ReservationRequestDTO reservationRequest) {
-        LocalDate startDate = reservationRequest.getStartDate();
-        LocalDate endDate = reservationRequest.getEndDate();
-
-        validateStartDateAndEndDateAreNotEqual(startDate, endDate);
-        validateStartDateNotAfterEndDate(startDate, endDate);
-        validateReservationDuration(startDate, endDate);
-        validateReservationNotAfterMaximumAllowedStartDate(startDate);
-        validateRoomNotReserved(startDate, reservationRequest.getRoomId());
+    void validateNewReservationRequest(ReservationRequestDTO reservationRequest) {
+        validateReservationPeriod(reservationRequest.getStartDate(), reservationRequest.getEndDate());
     }
 
     private void validateReservationUpdateRequest(ReservationUpdateRequestDTO reservationUpdateRequest, Reservation reservation) {
+        long stepStartNanos = reservationMetrics.startValidationStep();
         validateReservationStatusIsActive(reservation.getStatus());
+        reservationMetrics.endValidationStep(ValidationStep.STATUS_ACTIVE, stepStartNanos);
 
-        LocalDate updateRequestStartDate = reservationUpdateRequest.getStartDate();
-        LocalDate updateRequestEndDate = reservationUpdateRequest.getEndDate();
+        validateReservationPeriod(reservationUpdateRequest.getStartDate(), reservationUpdateRequest.getEndDate());
+    }
 
-        validateStartDateAndEndDateAreNotEqual(updateRequestStartDate, updateRequestEndDate);
-        validateStartDateNotAfterEndDate(updateRequestStartDate, updateRequestEndDate);
-        validateReservationDuration(updateRequestStartDate, updateRequestEndDate);
-        validateReservationNotAfterMaximumAllowedStartDate(updateRequestStartDate);
-        validateRoomNotReserved(updateRequestStartDate, reservation.getRoom().getId());
+    private void validateReservationPeriod(LocalDate startDate, LocalDate endDate) {
+        long stepStartNanos = reservationMetrics.startValidationStep();
+        validateStartDateAndEndDateAreNotEqual(startDate, endDate);
+        stepStartNanos = reservationMetrics.endValidationStep(ValidationStep.START_AND_END_DATE_NOT_EQUAL, stepStartNanos);
+        validateStartDateNotAfterEndDate(startDate, endDate);
+        stepStartNanos = reservationMetrics.endValidationStep(ValidationStep.START_DATE_NOT_AFTER_END_DATE, stepStartNanos);
+        validateReservationDuration(startDate, endDate);
+        stepStartNanos = reservationMetrics.endValidationStep(ValidationStep.DURATION, stepStartNanos);
+        validateReservationNotAfterMaximumAllowedStartDate(startDate);
+        reservationMetrics.endValidationStep(ValidationStep.MAXIMUM_START_DATE, stepStartNanos);
     }
 
     private static void validateReservationStatusIsActive(ReservationStatusEnum status) {
         if (!ReservationStatusEnum.ACTIVE.equals(status)) {
-            throw new ReservationException("Reservation must be active");
-        }
-    }
-
-    private void validateRoomNotReserved(LocalDate startDate, Long roomId) {
-        var roomAvailability = roomAvailabilityService.getRoomAvailability(startDate, roomId);
-
-        if (!roomAvailability.isAvailable()) {
-           throw new ReservationException("Room is already reserved in the provided period");
+            throw new ReservationException(ReservationRejectionReasonEnum.RESERVATION_NOT_ACTIVE, "Reservation must be active");
         }
     }
 
     private void validateReservationNotAfterMaximumAllowedStartDate(LocalDate startDate) {
         LocalDate limitDate = LocalDate.now(clock).plusDays(MAXIMUM_FUTURE_DAYS_ALLOWED);
         if (startDate.isAfter(limitDate)) {
-            throw new ReservationException("Reservation cannot be more than 30 days into the future");
+            throw new ReservationException(ReservationRejectionReasonEnum.START_DATE_TOO_FAR, "Reservation cannot be more than 30 days into the future");
         }
     }
 
     private static void validateReservationDuration(LocalDate startDate, LocalDate endDate) {
         if (ChronoUnit.DAYS.between(startDate, endDate) >= MAXIMUM_RESERVATION_DAS_ALLOWED) {
-            throw new ReservationException("Reservation period cannot be greater than 3 days");
+            throw new ReservationException(ReservationRejectionReasonEnum.PERIOD_TOO_LONG, "Reservation period cannot be greater than 3 days");
         }
     }
 
     private static void validateStartDateNotAfterEndDate(LocalDate startDate, LocalDate endDate) {
         if (startDate.isAfter(endDate)) {
-            throw new ReservationException("The start date cannot be after the end date");
+            throw new ReservationException(ReservationRejectionReasonEnum.START_DATE_AFTER_END_DATE, "The start date cannot be after the end date");
         }
     }
 
     private void validateStartDateAndEndDateAreNotEqual(LocalDate startDate, LocalDate endDate) {
         if (startDate.equals(endDate)) {
-            throw new ReservationException("The start and end date cannot be the same");
+            throw new ReservationException(ReservationRejectionReasonEnum.SAME_START_AND_END_DATE, "The start and end date cannot be the same");
         }
     }
 
     private void validateStartDateNotToday(LocalDate startDate) {
         if (LocalDate.now(clock).isEqual(startDate)) {
-            throw new ReservationException("Reservation cannot start today");
+            throw new ReservationException(ReservationRejectionReasonEnum.START_DATE_TODAY, "Reservation cannot start today");
         }
     }
 }
@@ -1,9 +1,16 @@
 package com.gustavo.cancunbooking.services;
 
+import com.gustavo.cancunbooking.controllers.response.NextAvailableStayResponseDTO;
 import com.gustavo.cancunbooking.controllers.response.RoomAvailabilityResponseDTO;
+import com.gustavo.cancunbooking.controllers.response.RoomAvailabilitySearchResultDTO;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface RoomAvailabilityService {
-    RoomAvailabilityResponseDTO getRoomAvailability(LocalDate startDate, Long roomId);
+    RoomAvailabilityResponseDTO getRoomAvailability(LocalDate startDate, LocalDate endDate, Long roomId);
+    CompletableFuture<RoomAvailabilityResponseDTO> getRoomAvailabilityAsync(LocalDate startDate, LocalDate endDate, Long roomId);
+    NextAvailableStayResponseDTO findNextAvailableStay(Long roomId, LocalDate fromDate, int days);
+    List<RoomAvailabilitySearchResultDTO> searchAvailability(LocalDate startDate, LocalDate endDate);
 }
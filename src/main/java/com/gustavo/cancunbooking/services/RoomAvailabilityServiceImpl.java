@@ -1,55 +1,176 @@
 package com.gustavo.cancunbooking.services;
 
+import com.gustavo.cancunbooking.beans.AvailabilityExecutorConfig;
+import com.gustavo.cancunbooking.controllers.response.NextAvailableStayResponseDTO;
 import com.gustavo.cancunbooking.controllers.response.RoomAvailabilityResponseDTO;
+import com.gustavo.cancunbooking.controllers.response.RoomAvailabilitySearchResultDTO;
 import com.gustavo.cancunbooking.exceptions.ReservationException;
-import com.gustavo.cancunbooking.model.Reservation;
-import com.gustavo.cancunbooking.model.ReservationStatusEnum;
+import com.gustavo.cancunbooking.exceptions.ReservationRejectionReasonEnum;
 import com.gustavo.cancunbooking.repositories.ReservationRepository;
 import com.gustavo.cancunbooking.repositories.RoomRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
 import java.time.LocalDate;
-import java.util.Optional;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class RoomAvailabilityServiceImpl implements RoomAvailabilityService {
+    static final String LOOKUPS_METRIC = "cancunbooking.availability.lookups";
+    static final String DATABASE_METRIC = "cancunbooking.availability.database";
+    static final String NEXT_STAY_METRIC = "cancunbooking.availability.next-stay";
+
+    private final RoomOccupancyIndex roomOccupancyIndex;
     private final ReservationRepository reservationRepository;
     private final RoomRepository roomRepository;
+    private final Executor availabilityExecutor;
+    private final Clock clock;
+
+    private final Counter indexHits;
+    private final Counter indexMisses;
+    private final Counter nextStayLookups;
+    private final Timer roomDatabaseTimer;
+    private final Timer searchDatabaseTimer;
 
     @Autowired
-    public RoomAvailabilityServiceImpl(ReservationRepository reservationRepository, RoomRepository roomRepository) {
+    public RoomAvailabilityServiceImpl(
+            RoomOccupancyIndex roomOccupancyIndex,
+            ReservationRepository reservationRepository,
+            RoomRepository roomRepository,
+            @Qualifier(AvailabilityExecutorConfig.AVAILABILITY_EXECUTOR) Executor availabilityExecutor,
+            Clock clock,
+            MeterRegistry meterRegistry
+    ) {
+        this.roomOccupancyIndex = roomOccupancyIndex;
         this.reservationRepository = reservationRepository;
         this.roomRepository = roomRepository;
+        this.availabilityExecutor = availabilityExecutor;
+        this.clock = clock;
+
+        // a miss is a period outside the index window, answered by the database
+        this.indexHits = Counter.builder(LOOKUPS_METRIC).tag("result", "hit").register(meterRegistry);
+        this.indexMisses = Counter.builder(LOOKUPS_METRIC).tag("result", "miss").register(meterRegistry);
+        // always answered by the index, so counted apart to keep the hit ratio about the checks that can miss
+        this.nextStayLookups = Counter.builder(NEXT_STAY_METRIC).register(meterRegistry);
+        this.roomDatabaseTimer = Timer.builder(DATABASE_METRIC).tag("query", "room").register(meterRegistry);
+        this.searchDatabaseTimer = Timer.builder(DATABASE_METRIC).tag("query", "search").register(meterRegistry);
+    }
+
+    @Override
+    public RoomAvailabilityResponseDTO getRoomAvailability(LocalDate startDate, LocalDate endDate, Long roomId) {
+        validateStartDateNotAfterEndDate(startDate, endDate);
+        validateRoomExists(roomId);
+
+        boolean isAvailable = isRoomFree(roomId, startDate, endDate);
+        LocalDate closestAvailableStartDate = isAvailable
+                ? startDate
+                : roomOccupancyIndex.findClosestFreeStart(roomId, startDate, (int) ChronoUnit.DAYS.between(startDate, endDate) + 1);
+        return new RoomAvailabilityResponseDTO(isAvailable, closestAvailableStartDate);
     }
 
     @Override
-    public RoomAvailabilityResponseDTO getRoomAvailability(LocalDate startDate, Long roomId) {
-        Optional<Reservation> reservationOptional =
-                reservationRepository.findByRoomIdAndStatus(roomId, ReservationStatusEnum.ACTIVE);
-
-        if (reservationOptional.isPresent()) {
-            Reservation reservation = reservationOptional.get();
-            return getRoomAvailability(startDate, reservation);
-        } else {
-            if (!roomRepository.existsById(roomId)){
-                throw new ReservationException("No room found with the provided id");
+    public CompletableFuture<RoomAvailabilityResponseDTO> getRoomAvailabilityAsync(LocalDate startDate, LocalDate endDate, Long roomId) {
+        // answered in place from the occupancy index, only checks that need the database leave the calling thread
+        if (roomOccupancyIndex.containsRoom(roomId) && roomOccupancyIndex.covers(startDate, endDate)) {
+            try {
+                return CompletableFuture.completedFuture(getRoomAvailability(startDate, endDate, roomId));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
             }
+        }
+        return CompletableFuture.supplyAsync(() -> getRoomAvailability(startDate, endDate, roomId), availabilityExecutor);
+    }
+
+    @Override
+    public NextAvailableStayResponseDTO findNextAvailableStay(Long roomId, LocalDate fromDate, int days) {
+        validateRoomExists(roomId);
 
-            return new RoomAvailabilityResponseDTO(true, LocalDate.now().plusDays(1));
+        // reservations cannot start today, so without a date the search starts tomorrow
+        LocalDate from = fromDate != null ? fromDate : LocalDate.now(clock).plusDays(1);
+        // the index only knows the days of its window, and a stay starting after the booking limit cannot be booked
+        if (from.isAfter(LocalDate.now(clock).plusDays(ReservationServiceImpl.MAXIMUM_FUTURE_DAYS_ALLOWED))) {
+            throw new ReservationException(ReservationRejectionReasonEnum.START_DATE_TOO_FAR, "From date cannot be more than 30 days into the future");
         }
+        nextStayLookups.increment();
+        LocalDate startDate = roomOccupancyIndex.findClosestFreeStart(roomId, from, days);
+        return new NextAvailableStayResponseDTO(roomId, startDate, startDate.plusDays(days - 1L));
     }
 
-    private static RoomAvailabilityResponseDTO getRoomAvailability(LocalDate startDate, Reservation reservation) {
-        LocalDate closestAvailableStartDate = reservation.getEndDate().plusDays(1);
-        if (roomIsReserved(startDate, reservation)) {
-            return new RoomAvailabilityResponseDTO(false, closestAvailableStartDate);
-        } else {
-            return new RoomAvailabilityResponseDTO(true, closestAvailableStartDate);
+    @Override
+    public List<RoomAvailabilitySearchResultDTO> searchAvailability(LocalDate startDate, LocalDate endDate) {
+        validateStartDateNotAfterEndDate(startDate, endDate);
+
+        if (roomOccupancyIndex.covers(startDate, endDate)) {
+            indexHits.increment();
+            // rooms created after startup are not in the index yet, so the rooms are read as outside the window
+            Set<Long> roomIds = new HashSet<>(roomRepository.findAllIds());
+            roomIds.forEach(roomOccupancyIndex::registerRoom);
+            List<RoomAvailabilitySearchResultDTO> results = new ArrayList<>(roomIds.size());
+            roomOccupancyIndex.forEachRoom(startDate, endDate, (roomId, isFree, closestFreeStart) -> {
+                if (roomIds.contains(roomId)) {
+                    results.add(new RoomAvailabilitySearchResultDTO(roomId, isFree, closestFreeStart));
+                }
+            });
+            results.sort(Comparator.comparing(RoomAvailabilitySearchResultDTO::getRoomId));
+            return results;
         }
+
+        // outside the index window the closest start date is unknown, so only the availability is reported
+        indexMisses.increment();
+        long startNanos = System.nanoTime();
+        Set<Long> reservedRoomIds = new HashSet<>(reservationRepository.findRoomIdsWithActiveReservationOverlapping(startDate, endDate));
+        List<Long> roomIds = roomRepository.findAllIds();
+        searchDatabaseTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+        return roomIds.stream()
+                .sorted()
+                .map(roomId -> reservedRoomIds.contains(roomId)
+                        ? new RoomAvailabilitySearchResultDTO(roomId, false, null)
+                        : new RoomAvailabilitySearchResultDTO(roomId, true, startDate))
+                .toList();
+    }
+
+    private static void validateStartDateNotAfterEndDate(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new ReservationException(ReservationRejectionReasonEnum.START_DATE_AFTER_END_DATE, "The start date cannot be after the end date");
+        }
+    }
+
+    private boolean isRoomFree(Long roomId, LocalDate startDate, LocalDate endDate) {
+        if (roomOccupancyIndex.covers(startDate, endDate)) {
+            indexHits.increment();
+            return roomOccupancyIndex.isFree(roomId, startDate, endDate);
+        }
+
+        indexMisses.increment();
+        long startNanos = System.nanoTime();
+        boolean isReserved = reservationRepository.existsActiveReservationOverlapping(roomId, startDate, endDate);
+        roomDatabaseTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        return !isReserved;
     }
 
-    private static boolean roomIsReserved(LocalDate startDate, Reservation reservation) {
-        return reservation.getEndDate().isEqual(startDate) || reservation.getEndDate().isAfter(startDate);
+    private void validateRoomExists(Long roomId) {
+        if (roomOccupancyIndex.containsRoom(roomId)) {
+            return;
+        }
+
+        // rooms are loaded into the index at startup, so only rooms created afterwards reach the database
+        if (!roomRepository.existsById(roomId)) {
+            throw new ReservationException(ReservationRejectionReasonEnum.ROOM_NOT_FOUND, "No room found with the provided id");
+        }
+        roomOccupancyIndex.registerRoom(roomId);
     }
 }
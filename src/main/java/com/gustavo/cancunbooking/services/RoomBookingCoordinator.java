@@ -0,0 +1,107 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.exceptions.ReservationException;
+import com.gustavo.cancunbooking.exceptions.ReservationRejectionReasonEnum;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+
+/**
+ * Makes the availability check and the booking of a room a single atomic step. Days are claimed with a
+ * compare-and-set on the room's bitmap in {@link RoomOccupancyIndex} before the reservation is inserted,
+ * so bookings for different rooms never contend and two bookings for the same days cannot both succeed.
+ * <p>
+ * Claims are undone if the surrounding transaction rolls back, while days are only given back once the
+ * transaction that frees them has committed. Committed changes are published to the availability stream and
+ * counted in the {@link OccupancyStatistics}.
+ */
+@Component
+public class RoomBookingCoordinator {
+
+    private final RoomOccupancyIndex roomOccupancyIndex;
+    private final AvailabilityChangePublisher availabilityChangePublisher;
+    private final OccupancyStatistics occupancyStatistics;
+
+    @Autowired
+    public RoomBookingCoordinator(RoomOccupancyIndex roomOccupancyIndex, AvailabilityChangePublisher availabilityChangePublisher,
+                                  OccupancyStatistics occupancyStatistics) {
+        this.roomOccupancyIndex = roomOccupancyIndex;
+        this.availabilityChangePublisher = availabilityChangePublisher;
+        this.occupancyStatistics = occupancyStatistics;
+    }
+
+    public void claim(Long roomId, LocalDate startDate, LocalDate endDate) {
+        if (!roomOccupancyIndex.tryOccupy(roomId, startDate, endDate)) {
+            throw new ReservationException(ReservationRejectionReasonEnum.ROOM_ALREADY_RESERVED, "Room is already reserved in the provided period");
+        }
+
+        onCompletion(
+                () -> {
+                    occupancyStatistics.add(roomId, startDate, endDate);
+                    availabilityChangePublisher.publish(roomId, startDate, endDate, false);
+                },
+                () -> roomOccupancyIndex.release(roomId, startDate, endDate));
+    }
+
+    public void reclaim(Long roomId, LocalDate currentStartDate, LocalDate currentEndDate,
+                        LocalDate newStartDate, LocalDate newEndDate) {
+        if (!roomOccupancyIndex.tryOccupyExcluding(roomId, newStartDate, newEndDate, currentStartDate, currentEndDate)) {
+            throw new ReservationException(ReservationRejectionReasonEnum.ROOM_ALREADY_RESERVED, "Room is already reserved in the provided period");
+        }
+
+        onCompletion(
+                () -> {
+                    roomOccupancyIndex.releaseExcluding(roomId, currentStartDate, currentEndDate, newStartDate, newEndDate);
+                    occupancyStatistics.remove(roomId, currentStartDate, currentEndDate);
+                    occupancyStatistics.add(roomId, newStartDate, newEndDate);
+                    publishExcluding(roomId, currentStartDate, currentEndDate, newStartDate, newEndDate, true);
+                    publishExcluding(roomId, newStartDate, newEndDate, currentStartDate, currentEndDate, false);
+                },
+                () -> roomOccupancyIndex.releaseExcluding(roomId, newStartDate, newEndDate, currentStartDate, currentEndDate));
+    }
+
+    public void release(Long roomId, LocalDate startDate, LocalDate endDate) {
+        onCompletion(
+                () -> {
+                    roomOccupancyIndex.release(roomId, startDate, endDate);
+                    occupancyStatistics.remove(roomId, startDate, endDate);
+                    availabilityChangePublisher.publish(roomId, startDate, endDate, true);
+                },
+                () -> { });
+    }
+
+    // days the update keeps did not change, so only the parts of the range outside the kept one are published
+    private void publishExcluding(Long roomId, LocalDate startDate, LocalDate endDate,
+                                  LocalDate keptStartDate, LocalDate keptEndDate, boolean isAvailable) {
+        LocalDate beforeKeptEndDate = keptStartDate.minusDays(1).isBefore(endDate) ? keptStartDate.minusDays(1) : endDate;
+        if (!beforeKeptEndDate.isBefore(startDate)) {
+            availabilityChangePublisher.publish(roomId, startDate, beforeKeptEndDate, isAvailable);
+        }
+
+        LocalDate afterKeptStartDate = keptEndDate.plusDays(1).isAfter(startDate) ? keptEndDate.plusDays(1) : startDate;
+        if (!afterKeptStartDate.isAfter(endDate)) {
+            availabilityChangePublisher.publish(roomId, afterKeptStartDate, endDate, isAvailable);
+        }
+    }
+
+    private static void onCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else if (status == STATUS_ROLLED_BACK) {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+}
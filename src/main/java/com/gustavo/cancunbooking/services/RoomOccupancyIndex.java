@@ -0,0 +1,234 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.RoomRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps one occupancy bitmap per room for a rolling window of {@link #WINDOW_DAYS} days starting at the
+ * current date. Bit {@code epochDay % 64} of a room's bitmap is set when the room is reserved on that day,
+ * so reads are a map lookup plus a few bit operations and never touch the database.
+ * <p>
+ * Reservations can only be placed up to {@link ReservationServiceImpl#MAXIMUM_FUTURE_DAYS_ALLOWED} days ahead,
+ * so no active reservation can fall after the end of the window.
+ * <p>
+ * Next to the bitmap every room keeps a calendar of the days a free stay of each length can start on, rebuilt
+ * whenever the room's bitmap changes. Finding the closest start for a stay of any length is then a shift and a
+ * trailing-zeros count. A calendar is only used while it matches the current bitmap, so a read racing with a
+ * change rebuilds it instead of answering from a stale one.
+ */
+@Component
+public class RoomOccupancyIndex {
+
+    static final int WINDOW_DAYS = Long.SIZE;
+
+    private final ConcurrentMap<Long, RoomOccupancy> occupancyByRoom = new ConcurrentHashMap<>();
+    private final ReservationRepository reservationRepository;
+    private final RoomRepository roomRepository;
+    private final Clock clock;
+
+    private volatile long windowStartDay;
+
+    @Autowired
+    public RoomOccupancyIndex(ReservationRepository reservationRepository, RoomRepository roomRepository, Clock clock) {
+        this.reservationRepository = reservationRepository;
+        this.roomRepository = roomRepository;
+        this.clock = clock;
+        this.windowStartDay = LocalDate.now(clock).toEpochDay();
+    }
+
+    @PostConstruct
+    public void load() {
+        roll();
+        roomRepository.findAllIds().forEach(this::registerRoom);
+        reservationRepository.findActiveReservationPeriodsEndingAtDateOrGreater(LocalDate.ofEpochDay(windowStartDay))
+                .forEach(period -> occupy(period.roomId(), period.startDate(), period.endDate()));
+    }
+
+    public boolean containsRoom(Long roomId) {
+        return occupancyByRoom.containsKey(roomId);
+    }
+
+    public void registerRoom(Long roomId) {
+        occupancyByRoom.computeIfAbsent(roomId, id -> new RoomOccupancy());
+    }
+
+    public boolean covers(LocalDate startDate, LocalDate endDate) {
+        long start = windowStartDay;
+        return startDate.toEpochDay() >= start && endDate.toEpochDay() < start + WINDOW_DAYS;
+    }
+
+    public boolean isFree(Long roomId, LocalDate startDate, LocalDate endDate) {
+        RoomOccupancy occupancy = occupancyByRoom.get(roomId);
+        return occupancy == null || (occupancy.get() & mask(startDate, endDate)) == 0;
+    }
+
+    public LocalDate findClosestFreeStart(Long roomId, LocalDate from, int days) {
+        long start = windowStartDay;
+        RoomOccupancy occupancy = occupancyByRoom.get(roomId);
+        if (occupancy == null) {
+            return LocalDate.ofEpochDay(Math.max(from.toEpochDay(), start));
+        }
+        return closestFreeStart(calendarOf(occupancy, start), from, days);
+    }
+
+    public void forEachRoom(LocalDate startDate, LocalDate endDate, RoomAvailabilityConsumer consumer) {
+        long start = windowStartDay;
+        long mask = ringMask(start, startDate.toEpochDay(), endDate.toEpochDay());
+        int days = (int) (endDate.toEpochDay() - startDate.toEpochDay()) + 1;
+
+        occupancyByRoom.forEach((roomId, occupancy) -> {
+            FreeStartCalendar calendar = calendarOf(occupancy, start);
+            boolean isFree = (calendar.bits() & mask) == 0;
+            consumer.accept(roomId, isFree, isFree ? startDate : closestFreeStart(calendar, startDate, days));
+        });
+    }
+
+    private static LocalDate closestFreeStart(FreeStartCalendar calendar, LocalDate from, int days) {
+        long offset = Math.max(from.toEpochDay() - calendar.windowStart(), 0);
+        if (offset >= WINDOW_DAYS) {
+            return LocalDate.ofEpochDay(calendar.windowStart() + offset);
+        }
+
+        long freeStarts = calendar.freeStarts(days) >>> offset;
+        if (freeStarts == 0) {
+            return LocalDate.ofEpochDay(calendar.windowStart() + WINDOW_DAYS);
+        }
+        return LocalDate.ofEpochDay(calendar.windowStart() + offset + Long.numberOfTrailingZeros(freeStarts));
+    }
+
+    private static FreeStartCalendar calendarOf(RoomOccupancy occupancy, long windowStart) {
+        long bits = occupancy.get();
+        FreeStartCalendar calendar = occupancy.calendar;
+        if (calendar == null || calendar.bits() != bits || calendar.windowStart() != windowStart) {
+            calendar = FreeStartCalendar.of(bits, windowStart);
+            occupancy.calendar = calendar;
+        }
+        return calendar;
+    }
+
+    public void occupy(Long roomId, LocalDate startDate, LocalDate endDate) {
+        roll();
+        long mask = mask(startDate, endDate);
+        RoomOccupancy occupancy = occupancyByRoom.computeIfAbsent(roomId, id -> new RoomOccupancy());
+        occupancy.getAndUpdate(bits -> bits | mask);
+        calendarOf(occupancy, windowStartDay);
+    }
+
+    public boolean tryOccupy(Long roomId, LocalDate startDate, LocalDate endDate) {
+        roll();
+        return tryOccupy(roomId, mask(startDate, endDate));
+    }
+
+    public boolean tryOccupyExcluding(Long roomId, LocalDate startDate, LocalDate endDate,
+                                      LocalDate ownedStartDate, LocalDate ownedEndDate) {
+        roll();
+        return tryOccupy(roomId, mask(startDate, endDate) & ~mask(ownedStartDate, ownedEndDate));
+    }
+
+    public void release(Long roomId, LocalDate startDate, LocalDate endDate) {
+        roll();
+        release(roomId, mask(startDate, endDate));
+    }
+
+    public void releaseExcluding(Long roomId, LocalDate startDate, LocalDate endDate,
+                                 LocalDate keptStartDate, LocalDate keptEndDate) {
+        roll();
+        release(roomId, mask(startDate, endDate) & ~mask(keptStartDate, keptEndDate));
+    }
+
+    private boolean tryOccupy(Long roomId, long mask) {
+        RoomOccupancy occupancy = occupancyByRoom.computeIfAbsent(roomId, id -> new RoomOccupancy());
+        long bits;
+        do {
+            bits = occupancy.get();
+            if ((bits & mask) != 0) {
+                return false;
+            }
+        } while (!occupancy.compareAndSet(bits, bits | mask));
+        calendarOf(occupancy, windowStartDay);
+        return true;
+    }
+
+    private void release(Long roomId, long mask) {
+        RoomOccupancy occupancy = occupancyByRoom.get(roomId);
+        if (occupancy != null) {
+            occupancy.getAndUpdate(bits -> bits & ~mask);
+            calendarOf(occupancy, windowStartDay);
+        }
+    }
+
+    private void roll() {
+        long today = LocalDate.now(clock).toEpochDay();
+        if (today > windowStartDay) {
+            advanceWindow(today);
+        }
+    }
+
+    private synchronized void advanceWindow(long today) {
+        long start = windowStartDay;
+        if (today <= start) {
+            return;
+        }
+
+        // Slots of days that leave the window are reused by days entering it, so they have to be cleared first
+        long expiredMask = ringMask(start, start, Math.min(today, start + WINDOW_DAYS) - 1);
+        occupancyByRoom.values().forEach(occupancy -> occupancy.getAndUpdate(bits -> bits & ~expiredMask));
+        windowStartDay = today;
+        occupancyByRoom.values().forEach(occupancy -> calendarOf(occupancy, today));
+    }
+
+    private long mask(LocalDate startDate, LocalDate endDate) {
+        long start = windowStartDay;
+        return ringMask(start, startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    private static long ringMask(long windowStart, long firstDay, long lastDay) {
+        long first = Math.max(firstDay - windowStart, 0);
+        long last = Math.min(lastDay - windowStart, WINDOW_DAYS - 1);
+        if (first > last) {
+            return 0L;
+        }
+
+        long linearMask = (-1L >>> (WINDOW_DAYS - 1 - (last - first))) << first;
+        return Long.rotateLeft(linearMask, (int) (windowStart & (WINDOW_DAYS - 1)));
+    }
+
+    private static final class RoomOccupancy extends AtomicLong {
+        private volatile FreeStartCalendar calendar;
+    }
+
+    /**
+     * Bit i of {@code freeStartsByDays[n - 1]} is set when n consecutive days starting at window day i are free,
+     * days after the end of the window are always free.
+     */
+    private record FreeStartCalendar(long bits, long windowStart, long[] freeStartsByDays) {
+
+        static FreeStartCalendar of(long bits, long windowStart) {
+            long freeDays = ~Long.rotateRight(bits, (int) (windowStart & (WINDOW_DAYS - 1)));
+            long[] freeStartsByDays = new long[WINDOW_DAYS];
+            freeStartsByDays[0] = freeDays;
+            for (int day = 1; day < WINDOW_DAYS; day++) {
+                freeStartsByDays[day] = freeStartsByDays[day - 1] & ((freeDays >>> day) | (-1L << (WINDOW_DAYS - day)));
+            }
+            return new FreeStartCalendar(bits, windowStart, freeStartsByDays);
+        }
+
+        long freeStarts(int days) {
+            return freeStartsByDays[Math.min(Math.max(days, 1), WINDOW_DAYS) - 1];
+        }
+    }
+
+    @FunctionalInterface
+    public interface RoomAvailabilityConsumer {
+        void accept(Long roomId, boolean isFree, LocalDate closestFreeStart);
+    }
+}
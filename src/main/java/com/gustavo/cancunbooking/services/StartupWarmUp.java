@@ -0,0 +1,171 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.model.ReservationStatusEnum;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.RoomRepository;
+import com.gustavo.cancunbooking.repositories.projections.ReservationExportRow;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs the read paths of the booking flow before the application reports itself ready: the room cache is filled,
+ * the {@link ReservationRepository} read queries are run so Hibernate has parsed them, and the availability checks
+ * are run until the JIT has compiled them. The full scans the occupancy index and the statistics run at startup are
+ * left out, they were just parsed by it. Runners are called before the application is ready, so the readiness probe
+ * keeps refusing traffic until the warm-up ends.
+ * <p>
+ * Rounds run one query at a time on this thread, so a driver statement cache, which belongs to a connection, is
+ * only filled on the connections the rounds happened to borrow. The other connections of the pools still prepare
+ * every statement once on first use.
+ * <p>
+ * Rounds are repeated until one has a p99 latency under the target, or the timeout passes. The time from JVM start
+ * to that first good round is reported next to the Spring Boot startup times.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cancunbooking.warmup.enabled", havingValue = "true")
+public class StartupWarmUp implements ApplicationRunner {
+
+    static final String WARMUP_METRIC = "cancunbooking.startup.warmup.time";
+    static final String FIRST_GOOD_P99_METRIC = "cancunbooking.startup.first-good-p99.time";
+
+    private static final int ROUND_CALLS = 11;
+
+    private final RoomOccupancyIndex roomOccupancyIndex;
+    private final RoomAvailabilityService roomAvailabilityService;
+    private final ReservationRepository reservationRepository;
+    private final RoomRepository roomRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Clock clock;
+    private final int minimumRounds;
+    private final long targetP99Nanos;
+    private final long timeoutNanos;
+
+    private volatile double warmUpMillis = Double.NaN;
+    private volatile double firstGoodP99Millis = Double.NaN;
+
+    @Autowired
+    public StartupWarmUp(
+            RoomOccupancyIndex roomOccupancyIndex,
+            RoomAvailabilityService roomAvailabilityService,
+            ReservationRepository reservationRepository,
+            RoomRepository roomRepository,
+            PlatformTransactionManager transactionManager,
+            Clock clock,
+            MeterRegistry meterRegistry,
+            @Value("${cancunbooking.warmup.minimum-rounds:10}") int minimumRounds,
+            @Value("${cancunbooking.warmup.target-p99:PT0.01S}") Duration targetP99,
+            @Value("${cancunbooking.warmup.timeout:PT30S}") Duration timeout
+    ) {
+        this.roomOccupancyIndex = roomOccupancyIndex;
+        this.roomAvailabilityService = roomAvailabilityService;
+        this.reservationRepository = reservationRepository;
+        this.roomRepository = roomRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.clock = clock;
+        this.minimumRounds = minimumRounds;
+        this.targetP99Nanos = targetP99.toNanos();
+        this.timeoutNanos = timeout.toNanos();
+
+        TimeGauge.builder(WARMUP_METRIC, this, TimeUnit.MILLISECONDS, warmUp -> warmUp.warmUpMillis)
+                .description("Time taken to warm up the application before accepting traffic")
+                .register(meterRegistry);
+        TimeGauge.builder(FIRST_GOOD_P99_METRIC, this, TimeUnit.MILLISECONDS, warmUp -> warmUp.firstGoodP99Millis)
+                .description("Time from JVM start until a warm-up round met the p99 latency target")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            warmUp();
+        } catch (RuntimeException e) {
+            // a cold start is slower but still correct, so a failed warm-up does not stop the application
+            log.warn("Warm-up failed, accepting traffic without it", e);
+        }
+    }
+
+    /**
+     * Runs warm-up rounds and returns how many were run.
+     */
+    public int warmUp() {
+        long startNanos = System.nanoTime();
+        List<Long> roomIds = roomRepository.findAllIds();
+        roomIds.forEach(roomRepository::findById);
+        Long roomId = roomIds.isEmpty() ? 0L : roomIds.get(0);
+        LocalDate today = LocalDate.now(clock);
+        long[] latencies = new long[ROUND_CALLS];
+
+        int rounds = 0;
+        long p99Nanos;
+        do {
+            p99Nanos = runRound(roomId, today, latencies);
+            rounds++;
+            if (p99Nanos <= targetP99Nanos && Double.isNaN(firstGoodP99Millis)) {
+                firstGoodP99Millis = ManagementFactory.getRuntimeMXBean().getUptime();
+            }
+        } while ((rounds < minimumRounds || p99Nanos > targetP99Nanos) && System.nanoTime() - startNanos < timeoutNanos);
+
+        warmUpMillis = (System.nanoTime() - startNanos) / 1e6;
+        log.info("Warm-up ran {} rounds in {} ms, last round p99 {} us, first good p99 {} ms after JVM start",
+                rounds, Math.round(warmUpMillis), TimeUnit.NANOSECONDS.toMicros(p99Nanos), firstGoodP99Millis);
+        return rounds;
+    }
+
+    private long runRound(Long roomId, LocalDate today, long[] latencies) {
+        // periods after the occupancy window go to the database, and match no reservation
+        LocalDate tomorrow = today.plusDays(1);
+        LocalDate farStartDate = today.plusYears(1);
+        LocalDate farEndDate = farStartDate.plusDays(2);
+        int calls = 0;
+
+        latencies[calls++] = time(() -> reservationRepository.findWithRoomAndUserById(0L));
+        latencies[calls++] = time(() -> reservationRepository.findActiveReservationIdsEndedBefore(today, Long.MAX_VALUE, Limit.of(1)));
+        latencies[calls++] = time(() -> reservationRepository.findInactiveReservationIdsEndedBefore(today, Long.MAX_VALUE, Limit.of(1)));
+        latencies[calls++] = time(() -> reservationRepository.findOccupiedPeriodsAfter(Long.MAX_VALUE, Limit.of(1)));
+        latencies[calls++] = time(() -> reservationRepository.findHistoryOfUser(0L, Limit.of(1)));
+        latencies[calls++] = time(() -> reservationRepository.findHistoryOfUserAfter(0L, farStartDate, Long.MAX_VALUE, Limit.of(1)));
+        // the export stream is read in a read-only transaction, as the export itself does
+        latencies[calls++] = time(() -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ReservationExportRow> rows = reservationRepository.streamForExport(farStartDate, farEndDate, EnumSet.allOf(ReservationStatusEnum.class))) {
+                rows.findFirst();
+            }
+        }));
+        latencies[calls++] = time(() -> roomAvailabilityService.searchAvailability(tomorrow, tomorrow.plusDays(2)));
+        latencies[calls++] = time(() -> roomAvailabilityService.searchAvailability(farStartDate, farEndDate));
+        if (roomOccupancyIndex.containsRoom(roomId)) {
+            latencies[calls++] = time(() -> roomAvailabilityService.getRoomAvailability(tomorrow, tomorrow.plusDays(2), roomId));
+            latencies[calls++] = time(() -> roomAvailabilityService.getRoomAvailability(farStartDate, farEndDate, roomId));
+        }
+
+        Arrays.sort(latencies, 0, calls);
+        return latencies[Math.max((int) Math.ceil(calls * 0.99) - 1, 0)];
+    }
+
+    private static long time(Runnable call) {
+        long startNanos = System.nanoTime();
+        call.run();
+        return System.nanoTime() - startNanos;
+    }
+}
@@ -0,0 +1,86 @@
+-- schema of an empty MySQL 8 database for the prod profile, which only validates it against the entities
+-- a database created by an earlier version with spring.jpa.hibernate.ddl-auto=create is upgraded with upgrade-from-baseline.sql instead
+
+create table users (
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    name varchar(255) not null,
+    primary key (id),
+    constraint UK_6dotkott2kjsp8vw4d0m25fb7 unique (email)
+);
+
+create table room (
+    number integer not null,
+    id bigint not null auto_increment,
+    primary key (id),
+    constraint UK_36mkgyjf7t5hsxx4vtp89i9ey unique (number)
+);
+
+create table reservation (
+    end_date date not null,
+    start_date date not null,
+    id bigint not null,
+    room_id bigint not null,
+    user_id bigint not null,
+    version bigint not null,
+    status enum ('ACTIVE','CANCELLED','FINISHED') not null,
+    primary key (id),
+    constraint FKm8xumi0g23038cw32oiva2ymw foreign key (room_id) references room (id),
+    constraint FKrea93581tgkq61mdl13hehami foreign key (user_id) references users (id)
+);
+
+create index IDX_RESERVATION_ROOM_STATUS_DATES on reservation (room_id, status, start_date, end_date);
+create index IDX_RESERVATION_STATUS_ID on reservation (status, id);
+create index IDX_RESERVATION_USER_START_ID on reservation (user_id, start_date, id, end_date, room_id, status);
+
+-- MySQL has no sequences, Hibernate emulates RESERVATION_SEQ and RESERVATION_EVENT_SEQ with these tables
+create table reservation_seq (
+    next_val bigint
+);
+
+insert into reservation_seq values (1);
+
+create table reservation_event (
+    end_date date not null,
+    start_date date not null,
+    created_at datetime(6) not null,
+    id bigint not null,
+    reservation_id bigint not null,
+    room_id bigint not null,
+    user_id bigint not null,
+    type enum ('CANCELLED','PLACED','UPDATED') not null,
+    primary key (id)
+);
+
+create table reservation_event_seq (
+    next_val bigint
+);
+
+insert into reservation_event_seq values (1);
+
+create table reservation_archive (
+    end_date date not null,
+    start_date date not null,
+    archived_at datetime(6) not null,
+    id bigint not null,
+    room_id bigint not null,
+    user_id bigint not null,
+    status enum ('ACTIVE','CANCELLED','FINISHED') not null,
+    primary key (id)
+);
+
+create index IDX_RESERVATION_ARCHIVE_ROOM_START_DATE on reservation_archive (room_id, start_date);
+create index IDX_RESERVATION_ARCHIVE_USER_START_ID on reservation_archive (user_id, start_date, id);
+
+create table idempotency_record (
+    end_date date not null,
+    start_date date not null,
+    created_at datetime(6) not null,
+    reservation_id bigint not null,
+    room_id bigint not null,
+    user_id bigint not null,
+    idempotency_key varchar(255) not null,
+    primary key (idempotency_key)
+);
+
+create index IDX_IDEMPOTENCY_RECORD_CREATED_AT on idempotency_record (created_at);
@@ -0,0 +1,71 @@
+-- upgrades a database created by the first version of the application, whose schema was generated with
+-- spring.jpa.hibernate.ddl-auto=create, to the schema of schema.sql
+-- run it once with the application stopped, it is not written to be run again
+
+-- reservation ids come from a pooled sequence instead of auto_increment, it starts a pool past the existing ids
+alter table reservation modify id bigint not null;
+
+create table reservation_seq (
+    next_val bigint
+);
+
+insert into reservation_seq select coalesce(max(id), 0) + 100 from reservation;
+
+-- reservations are versioned for optimistic locking
+alter table reservation add column version bigint not null default 0;
+alter table reservation alter column version drop default;
+
+create index IDX_RESERVATION_ROOM_STATUS_DATES on reservation (room_id, status, start_date, end_date);
+create index IDX_RESERVATION_STATUS_ID on reservation (status, id);
+create index IDX_RESERVATION_USER_START_ID on reservation (user_id, start_date, id, end_date, room_id, status);
+
+-- the room of a reservation was mapped one to one, so a room could only ever hold a single reservation
+-- the room foreign key is backed by the unique index, so it is added again once the index is gone
+alter table reservation drop foreign key FKm8xumi0g23038cw32oiva2ymw;
+alter table reservation drop constraint UK_uiis842vpqkfw6wed0ew4scw;
+alter table reservation add constraint FKm8xumi0g23038cw32oiva2ymw foreign key (room_id) references room (id);
+
+create table reservation_event (
+    end_date date not null,
+    start_date date not null,
+    created_at datetime(6) not null,
+    id bigint not null,
+    reservation_id bigint not null,
+    room_id bigint not null,
+    user_id bigint not null,
+    type enum ('CANCELLED','PLACED','UPDATED') not null,
+    primary key (id)
+);
+
+create table reservation_event_seq (
+    next_val bigint
+);
+
+insert into reservation_event_seq values (1);
+
+create table reservation_archive (
+    end_date date not null,
+    start_date date not null,
+    archived_at datetime(6) not null,
+    id bigint not null,
+    room_id bigint not null,
+    user_id bigint not null,
+    status enum ('ACTIVE','CANCELLED','FINISHED') not null,
+    primary key (id)
+);
+
+create index IDX_RESERVATION_ARCHIVE_ROOM_START_DATE on reservation_archive (room_id, start_date);
+create index IDX_RESERVATION_ARCHIVE_USER_START_ID on reservation_archive (user_id, start_date, id);
+
+create table idempotency_record (
+    end_date date not null,
+    start_date date not null,
+    created_at datetime(6) not null,
+    reservation_id bigint not null,
+    room_id bigint not null,
+    user_id bigint not null,
+    idempotency_key varchar(255) not null,
+    primary key (idempotency_key)
+);
+
+create index IDX_IDEMPOTENCY_RECORD_CREATED_AT on idempotency_record (created_at);
@@ -0,0 +1,57 @@
+package com.gustavo.cancunbooking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * Boots the application against an embedded database in MySQL mode created by the scripts in db/mysql, with the
+ * schema validated against the entities as the prod profile does.
+ */
+class SchemaScriptsTest {
+
+    @Test
+    public void shouldCreateTheSchemaTheEntitiesExpect() {
+        // when
+        try (ConfigurableApplicationContext context = bootOn("classpath:db/mysql/schema.sql")) {
+            var jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+            // then
+            then(jdbcTemplate.queryForObject("select count(*) from reservation", Long.class)).isZero();
+        }
+    }
+
+    @Test
+    public void shouldUpgradeABaselineDatabaseToTheSchemaTheEntitiesExpect() {
+        // when
+        try (ConfigurableApplicationContext context = bootOn(
+                "classpath:db/mysql/baseline-schema.sql,classpath:db/mysql/upgrade-from-baseline.sql")) {
+            var jdbcTemplate = context.getBean(JdbcTemplate.class);
+            jdbcTemplate.update("insert into reservation(id, start_date, end_date, user_id, room_id, status, version) "
+                    + "values (2, '2024-02-10', '2024-02-12', 1, 1, 'FINISHED', 0)");
+
+            // then
+            then(jdbcTemplate.queryForObject("select count(*) from reservation where room_id = 1", Long.class)).isEqualTo(2);
+            then(jdbcTemplate.queryForObject("select next_val from reservation_seq", Long.class)).isGreaterThan(100);
+        }
+    }
+
+    private static ConfigurableApplicationContext bootOn(String schemaLocations) {
+        return new SpringApplicationBuilder(CancunbookingApplication.class)
+                .profiles("test")
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:schema-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+                        "--spring.jpa.hibernate.ddl-auto=validate",
+                        "--spring.jpa.defer-datasource-initialization=false",
+                        "--spring.sql.init.mode=always",
+                        "--spring.sql.init.schema-locations=" + schemaLocations,
+                        "--spring.sql.init.data-locations=optional:classpath:db/mysql/none.sql");
+    }
+}
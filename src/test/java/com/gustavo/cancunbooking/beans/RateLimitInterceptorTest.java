@@ -0,0 +1,199 @@
+package com.gustavo.cancunbooking.beans;
+
+import com.gustavo.cancunbooking.controllers.ReservationController;
+import com.gustavo.cancunbooking.controllers.advice.ApplicationControllerAdvice;
+import com.gustavo.cancunbooking.exceptions.RateLimitExceededException;
+import com.gustavo.cancunbooking.services.ReservationIdempotencyService;
+import com.gustavo.cancunbooking.services.ReservationService;
+import com.gustavo.cancunbooking.services.RoomAvailabilityService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.BDDAssertions.catchThrowableOfType;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitInterceptorTest {
+
+    SimpleMeterRegistry meterRegistry;
+
+    AtomicLong nanoTime;
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private RoomAvailabilityService roomAvailabilityService;
+
+    @Mock
+    private ReservationIdempotencyService reservationIdempotencyService;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        nanoTime = new AtomicLong(1_000_000_000L);
+    }
+
+    @Test
+    public void shouldThrottleAClientOverItsCapacityUntilItsBucketRefills() {
+        // given
+        var rateLimitInterceptor = rateLimitInterceptor(2, 100);
+        preHandle(rateLimitInterceptor, "10.0.0.1");
+        preHandle(rateLimitInterceptor, "10.0.0.1");
+
+        // when
+        var exception = catchThrowableOfType(() -> preHandle(rateLimitInterceptor, "10.0.0.1"), RateLimitExceededException.class);
+
+        // then
+        then(exception.getRetryAfterSeconds()).isEqualTo(5);
+        then(preHandle(rateLimitInterceptor, "10.0.0.2")).isTrue();
+        nanoTime.addAndGet(Duration.ofSeconds(5).toNanos());
+        then(preHandle(rateLimitInterceptor, "10.0.0.1")).isTrue();
+        then(requests("allowed")).isEqualTo(4);
+        then(requests("client-throttled")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldThrottleAllClientsOverTheEndpointCapacityWithoutChargingThem() {
+        // given
+        var rateLimitInterceptor = rateLimitInterceptor(1, 3);
+        preHandle(rateLimitInterceptor, "10.0.0.1");
+        preHandle(rateLimitInterceptor, "10.0.0.2");
+        preHandle(rateLimitInterceptor, "10.0.0.3");
+
+        // when
+        var exception = catchThrowableOfType(() -> preHandle(rateLimitInterceptor, "10.0.0.4"), RateLimitExceededException.class);
+
+        // then
+        then(exception.getRetryAfterSeconds()).isEqualTo(4);
+        nanoTime.addAndGet(Duration.ofSeconds(4).toNanos());
+        then(preHandle(rateLimitInterceptor, "10.0.0.4")).isTrue();
+        then(requests("endpoint-throttled")).isEqualTo(1);
+        then(meterRegistry.get(RateLimitInterceptor.CLIENTS_METRIC).gauge().value()).isEqualTo(4);
+    }
+
+    @Test
+    public void shouldTellClientsBehindTheSameAddressApartByTheClientHeader() {
+        // given
+        var rateLimitInterceptor = rateLimitInterceptor(1, 100);
+        preHandle(rateLimitInterceptor, "10.0.0.1", "partner-1");
+
+        // when
+        var exception = catchThrowableOfType(() -> preHandle(rateLimitInterceptor, "10.0.0.1", "partner-1"), RateLimitExceededException.class);
+
+        // then
+        then(exception).isNotNull();
+        then(preHandle(rateLimitInterceptor, "10.0.0.1", "partner-2")).isTrue();
+        then(preHandle(rateLimitInterceptor, "10.0.0.1")).isTrue();
+    }
+
+    @Test
+    public void shouldTakeOneTokenPerReservationOfABatch() throws Exception {
+        // given
+        var mockMvc = MockMvcBuilders
+                .standaloneSetup(new ReservationController(reservationService, roomAvailabilityService, reservationIdempotencyService))
+                .setControllerAdvice(new ApplicationControllerAdvice())
+                .addMappedInterceptors(new String[]{"/api/v1/reservation/new-batch"}, rateLimitInterceptor(3, 100))
+                .build();
+        placeBatch(mockMvc, 3).andExpect(status().isOk());
+
+        // when
+        var result = placeBatch(mockMvc, 1);
+
+        // then
+        result.andExpect(status().isTooManyRequests());
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+        placeBatch(mockMvc, 2).andExpect(status().isOk());
+        placeBatch(mockMvc, 2).andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    public void shouldAdmitABatchLargerThanTheCapacityOnceTheBucketIsFullAndThrottleUntilItIsPaidFor() throws Exception {
+        // given
+        var mockMvc = MockMvcBuilders
+                .standaloneSetup(new ReservationController(reservationService, roomAvailabilityService, reservationIdempotencyService))
+                .setControllerAdvice(new ApplicationControllerAdvice())
+                .addMappedInterceptors(new String[]{"/api/v1/reservation/new-batch"}, rateLimitInterceptor(2, 100))
+                .build();
+        placeBatch(mockMvc, 10).andExpect(status().isOk());
+
+        // when
+        var result = placeBatch(mockMvc, 1);
+
+        // then
+        result.andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "45"));
+    }
+
+    @Test
+    public void shouldAnswerThrottledRequestsWithTooManyRequestsAndRetryAfter() throws Exception {
+        // given
+        var mockMvc = MockMvcBuilders
+                .standaloneSetup(new ReservationController(reservationService, roomAvailabilityService, reservationIdempotencyService))
+                .setControllerAdvice(new ApplicationControllerAdvice())
+                .addMappedInterceptors(new String[]{"/api/v1/reservation/check-availability"}, rateLimitInterceptor(1, 100))
+                .build();
+        checkAvailability(mockMvc).andExpect(status().isOk());
+
+        // when
+        var result = checkAvailability(mockMvc);
+
+        // then
+        result.andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "10"));
+    }
+
+    private static ResultActions checkAvailability(MockMvc mockMvc) throws Exception {
+        return mockMvc.perform(post("/api/v1/reservation/check-availability")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"startDate\": \"2999-01-01\", \"roomId\": 1}"));
+    }
+
+    private static ResultActions placeBatch(MockMvc mockMvc, int reservations) throws Exception {
+        String reservation = "{\"userId\": 1, \"roomId\": 1, \"startDate\": \"2999-01-01\", \"endDate\": \"2999-01-02\"}";
+        return mockMvc.perform(post("/api/v1/reservation/new-batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"reservations\": [" + String.join(",", Collections.nCopies(reservations, reservation)) + "]}"));
+    }
+
+    private RateLimitInterceptor rateLimitInterceptor(long clientCapacity, long endpointCapacity) {
+        // buckets refill one token every 10 seconds divided by their capacity
+        return new RateLimitInterceptor("check-availability", "X-Client-Id", clientCapacity, endpointCapacity, Duration.ofSeconds(10),
+                100, Duration.ofMinutes(10), meterRegistry, nanoTime::get);
+    }
+
+    private static boolean preHandle(RateLimitInterceptor rateLimitInterceptor, String client) {
+        var request = new MockHttpServletRequest("POST", "/api/v1/reservation/check-availability");
+        request.setRemoteAddr(client);
+        return rateLimitInterceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+    }
+
+    private static boolean preHandle(RateLimitInterceptor rateLimitInterceptor, String client, String clientId) {
+        var request = new MockHttpServletRequest("POST", "/api/v1/reservation/check-availability");
+        request.setRemoteAddr(client);
+        request.addHeader("X-Client-Id", clientId);
+        return rateLimitInterceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+    }
+
+    private double requests(String outcome) {
+        return meterRegistry.get(RateLimitInterceptor.REQUESTS_METRIC).tag("outcome", outcome).counter().count();
+    }
+}
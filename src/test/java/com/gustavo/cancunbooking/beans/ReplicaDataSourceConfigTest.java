@@ -0,0 +1,69 @@
+package com.gustavo.cancunbooking.beans;
+
+import com.gustavo.cancunbooking.services.ReservationExportService;
+import com.gustavo.cancunbooking.services.ReservationExportService.Format;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+// the replica points at the database of the primary, so it has the schema the export reads
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-routing;DB_CLOSE_DELAY=-1",
+        "cancunbooking.datasource.replica.url=jdbc:h2:mem:replica-routing;DB_CLOSE_DELAY=-1",
+        "cancunbooking.datasource.replica.username=sa",
+        "cancunbooking.lifecycle.initial-delay=PT1H"
+})
+class ReplicaDataSourceConfigTest {
+
+    @Autowired
+    private ReservationExportService reservationExportService;
+
+    @Autowired
+    @Qualifier(ReplicaDataSourceConfig.PRIMARY_DATA_SOURCE)
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier(ReplicaDataSourceConfig.REPLICA_DATA_SOURCE)
+    private HikariDataSource replicaDataSource;
+
+    @Test
+    public void shouldExportFromAReplicaConnectionWithCursorFetch() throws Exception {
+        // given
+        var activeConnections = new AtomicReference<int[]>();
+        OutputStream outputStream = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            // the rows are flushed before the export returns, while its transaction still holds the connection
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                activeConnections.compareAndSet(null, new int[]{
+                        primaryDataSource.getHikariPoolMXBean().getActiveConnections(),
+                        replicaDataSource.getHikariPoolMXBean().getActiveConnections()});
+            }
+        };
+
+        // when
+        reservationExportService.exportReservations(LocalDate.of(2020, 1, 1), LocalDate.of(2030, 1, 1), Set.of(), Format.CSV, outputStream);
+
+        // then
+        then(activeConnections.get()).containsExactly(0, 1);
+        then(replicaDataSource.getDataSourceProperties()).containsEntry("useCursorFetch", "true");
+        then(replicaDataSource.isReadOnly()).isTrue();
+    }
+}
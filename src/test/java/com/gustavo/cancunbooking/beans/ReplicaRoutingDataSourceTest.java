@@ -0,0 +1,137 @@
+package com.gustavo.cancunbooking.beans;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class ReplicaRoutingDataSourceTest {
+
+    JdbcTemplate jdbcTemplate;
+
+    TransactionTemplate readWriteTransaction;
+
+    TransactionTemplate readOnlyTransaction;
+
+    ReadYourWritesFilter readYourWritesFilter;
+
+    @BeforeEach
+    public void setUp() {
+        DataSource primaryDataSource = createDatabase("primary");
+        DataSource replicaDataSource = createDatabase("replica");
+
+        var routingDataSource = new ReplicaRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.Route.PRIMARY, primaryDataSource,
+                ReplicaRoutingDataSource.Route.REPLICA, replicaDataSource));
+        routingDataSource.afterPropertiesSet();
+        var dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        var transactionManager = new DataSourceTransactionManager(dataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readYourWritesFilter = new ReadYourWritesFilter(Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    public void shouldServeReadOnlyTransactionsFromTheReplica() {
+        // when
+        String node = readOnlyTransaction.execute(status -> currentNode());
+
+        // then
+        then(node).isEqualTo("replica");
+    }
+
+    @Test
+    public void shouldServeReadWriteTransactionsAndStatementsOutsideTransactionsFromThePrimary() {
+        // when
+        String readWriteTransactionNode = readWriteTransaction.execute(status -> currentNode());
+        String nonTransactionalNode = currentNode();
+
+        // then
+        then(readWriteTransactionNode).isEqualTo("primary");
+        then(nonTransactionalNode).isEqualTo("primary");
+    }
+
+    @Test
+    public void shouldServeTheReadsOfAClientThatJustWroteFromThePrimary() throws Exception {
+        // given
+        handleRequest("10.0.0.1", () -> readWriteTransaction.execute(status ->
+                jdbcTemplate.update("Update NODE set WRITES = WRITES + 1")));
+
+        // when
+        String writerReadNode = handleRequest("10.0.0.1", () -> readOnlyTransaction.execute(status -> currentNode()));
+        String otherClientReadNode = handleRequest("10.0.0.2", () -> readOnlyTransaction.execute(status -> currentNode()));
+
+        // then
+        then(writerReadNode).isEqualTo("primary");
+        then(otherClientReadNode).isEqualTo("replica");
+    }
+
+    @Test
+    public void shouldServeTheAsynchronousReadsOfAClientThatJustWroteFromThePrimary() throws Exception {
+        // given
+        try (var executor = new RouteAwareExecutorService(Executors.newVirtualThreadPerTaskExecutor())) {
+            handleRequest("10.0.0.1", () -> readWriteTransaction.execute(status ->
+                    jdbcTemplate.update("Update NODE set WRITES = WRITES + 1")));
+
+            // when
+            String writerReadNode = handleRequest("10.0.0.1", () -> CompletableFuture
+                    .supplyAsync(() -> readOnlyTransaction.execute(status -> currentNode()), executor).join());
+            String otherClientReadNode = handleRequest("10.0.0.2", () -> CompletableFuture
+                    .supplyAsync(() -> readOnlyTransaction.execute(status -> currentNode()), executor).join());
+
+            // then
+            then(writerReadNode).isEqualTo("primary");
+            then(otherClientReadNode).isEqualTo("replica");
+        }
+    }
+
+    private String handleRequest(String remoteAddress, RequestHandler handler) throws Exception {
+        var request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddress);
+        var result = new AtomicReference<String>();
+        readYourWritesFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest servletRequest, jakarta.servlet.ServletResponse servletResponse) {
+                result.set(String.valueOf(handler.handle()));
+            }
+        });
+        return result.get();
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("Select NAME From NODE", String.class);
+    }
+
+    private static DataSource createDatabase(String name) {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("Create table NODE (NAME varchar(20), WRITES int)");
+        jdbcTemplate.update("Insert into NODE values (?, 0)", name);
+        return dataSource;
+    }
+
+    @FunctionalInterface
+    private interface RequestHandler {
+        Object handle();
+    }
+}
@@ -0,0 +1,50 @@
+package com.gustavo.cancunbooking.controllers;
+
+import com.gustavo.cancunbooking.controllers.advice.ApplicationControllerAdvice;
+import com.gustavo.cancunbooking.repositories.ReservationArchiveRepository;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.RoomRepository;
+import com.gustavo.cancunbooking.services.OccupancyStatistics;
+import com.gustavo.cancunbooking.services.OccupancyStatisticsServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class OccupancyStatisticsControllerTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private ReservationArchiveRepository reservationArchiveRepository;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Test
+    public void shouldAnswerServiceUnavailableWhenTheStatisticsAreDisabledOnTheNode() throws Exception {
+        // given
+        var occupancyStatistics = new OccupancyStatistics(reservationRepository, reservationArchiveRepository, 2, false);
+        MockMvc mockMvc = MockMvcBuilders
+                .standaloneSetup(new OccupancyStatisticsController(new OccupancyStatisticsServiceImpl(occupancyStatistics, roomRepository)))
+                .setControllerAdvice(new ApplicationControllerAdvice())
+                .build();
+
+        // when
+        mockMvc.perform(get("/api/v1/reservation/statistics/occupancy/2023-03"))
+
+                // then
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.errorMessage").value("The occupancy statistics are disabled on this node"));
+        verifyNoInteractions(roomRepository);
+    }
+}
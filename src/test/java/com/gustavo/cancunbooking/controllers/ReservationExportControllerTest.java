@@ -0,0 +1,65 @@
+package com.gustavo.cancunbooking.controllers;
+
+import com.gustavo.cancunbooking.services.ReservationExportService;
+import com.gustavo.cancunbooking.services.ReservationExportService.Format;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationExportControllerTest {
+
+    @Mock
+    private ReservationExportService reservationExportService;
+
+    @Test
+    public void shouldStreamTheExportOnAnAsyncRequestWithItsOwnTimeout() throws Exception {
+        // given
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ReservationExportController(reservationExportService, Duration.ofMinutes(30)))
+                .setAsyncRequestTimeout(Duration.ofSeconds(10).toMillis())
+                .build();
+        willAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(4).write("1,1,1,2023-03-01,2023-03-02,FINISHED\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).given(reservationExportService).exportReservations(eq(LocalDate.of(2023, 3, 1)), eq(LocalDate.of(2023, 3, 31)),
+                isNull(), eq(Format.CSV), any(OutputStream.class));
+
+        // when
+        MvcResult mvcResult = mockMvc.perform(get("/api/v1/reservation/export")
+                        .param("startDate", "2023-03-01")
+                        .param("endDate", "2023-03-31")
+                        .param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        then(mvcResult.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(Format.CSV.getContentType()))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reservations-2023-03-01-2023-03-31.csv\""))
+                .andExpect(content().string("1,1,1,2023-03-01,2023-03-02,FINISHED\n"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.gustavo.cancunbooking.loadtest;
+
+import com.gustavo.cancunbooking.CancunbookingApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * Boots the application on the seeded embedded database of the loadtest profile, drives the operation mix at the
+ * target rate and prints the report, with the latency histograms written to target/loadtest. The seeded data is
+ * sized with {@code -Dcancunbooking.loadtest.rooms} and the other properties of the profile. Run with
+ * {@code mvn test -Dtest=BookingLoadTest -Dloadtest=true}, and tune it with
+ * {@code -Dloadtest.rate=500 -Dloadtest.duration=PT1M -Dloadtest.mix=new=20,update=10,cancel=5,check-availability=65}.
+ * <p>
+ * Setting {@code -Dloadtest.url=http://host:8080/} drives an application that is already running instead, seeded
+ * with as many rooms and users as {@code -Dloadtest.rooms} and {@code -Dloadtest.users}.
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class BookingLoadTest {
+
+    @Test
+    public void shouldDriveTheOperationMixAtTheTargetRate() throws Exception {
+        String url = System.getProperty("loadtest.url");
+        if (url != null) {
+            runLoad(URI.create(url), Integer.getInteger("loadtest.rooms", 2000), Integer.getInteger("loadtest.users", 10000));
+            return;
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CancunbookingApplication.class)
+                .profiles("loadtest")
+                .properties("server.port=0")
+                .run()) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            runLoad(URI.create("http://localhost:" + port + "/"),
+                    context.getEnvironment().getRequiredProperty("cancunbooking.loadtest.rooms", Integer.class),
+                    context.getEnvironment().getRequiredProperty("cancunbooking.loadtest.users", Integer.class));
+        }
+    }
+
+    private static void runLoad(URI baseUrl, int rooms, int users) throws Exception {
+        var loadProfile = LoadProfile.fromSystemProperties(baseUrl, rooms, users);
+
+        HttpClient httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        LoadReport report = new LoadDriver(httpClient, loadProfile).run();
+
+        report.print(System.out);
+        report.writeHistograms(Path.of("target", "loadtest"));
+        then(report.failedRequests()).isZero();
+    }
+}
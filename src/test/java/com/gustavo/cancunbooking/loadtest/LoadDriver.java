@@ -0,0 +1,183 @@
+package com.gustavo.cancunbooking.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gustavo.cancunbooking.services.ReservationServiceImpl;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends a mix of bookings, updates, cancellations and availability checks at a fixed rate. Requests are started
+ * on schedule whether or not earlier ones have answered, and their latency is measured from the time they were
+ * scheduled, so a slow server shows up as latency instead of as a lower request rate.
+ * <p>
+ * Updates and cancellations work on reservations this driver placed. Until there is one to pick they are sent
+ * as bookings instead.
+ */
+public class LoadDriver {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LoadProfile loadProfile;
+    private final Map<Operation, OperationRecorder> recorders = new EnumMap<>(Operation.class);
+    private final ConcurrentLinkedQueue<Long> placedReservationIds = new ConcurrentLinkedQueue<>();
+
+    public LoadDriver(HttpClient httpClient, LoadProfile loadProfile) {
+        this.httpClient = httpClient;
+        this.loadProfile = loadProfile;
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new OperationRecorder());
+        }
+    }
+
+    public LoadReport run() {
+        var random = new SplittableRandom(loadProfile.seed());
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / loadProfile.targetRate();
+        long durationNanos = loadProfile.duration().toNanos();
+
+        long startNanos = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long request = 0; request * intervalNanos < durationNanos; request++) {
+                long scheduledNanos = startNanos + request * intervalNanos;
+                LockSupport.parkNanos(scheduledNanos - System.nanoTime());
+                Operation operation = loadProfile.pickOperation(random);
+                executor.execute(() -> send(operation, scheduledNanos));
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+
+        Map<Operation, LoadReport.OperationResult> results = new EnumMap<>(Operation.class);
+        recorders.forEach((operation, recorder) -> results.put(operation, recorder.toResult()));
+        return new LoadReport(loadProfile.targetRate(), elapsed, results);
+    }
+
+    private void send(Operation operation, long scheduledNanos) {
+        Long reservationId = null;
+        if (operation == Operation.UPDATE || operation == Operation.CANCEL) {
+            reservationId = placedReservationIds.poll();
+            if (reservationId == null) {
+                operation = Operation.NEW;
+            }
+        }
+
+        int status;
+        String body = null;
+        try {
+            HttpResponse<String> response = httpClient.send(request(operation, reservationId), HttpResponse.BodyHandlers.ofString());
+            status = response.statusCode();
+            body = response.body();
+        } catch (IOException e) {
+            status = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = 0;
+        }
+        recorders.get(operation).record(status, System.nanoTime() - scheduledNanos);
+
+        if (operation == Operation.NEW && status == 201) {
+            placedReservationIds.add(readReservationId(body));
+        } else if (operation == Operation.UPDATE) {
+            // a rejected update leaves the reservation as it was, so it can still be updated or cancelled
+            placedReservationIds.add(reservationId);
+        } else if (operation == Operation.CANCEL && (status < 200 || status >= 300)) {
+            placedReservationIds.add(reservationId);
+        }
+    }
+
+    private HttpRequest request(Operation operation, Long reservationId) {
+        var random = ThreadLocalRandom.current();
+        // stays of one or two nights starting within the booking window, so they are valid whenever they are free
+        LocalDate startDate = LocalDate.now().plusDays(1 + random.nextInt(ReservationServiceImpl.MAXIMUM_FUTURE_DAYS_ALLOWED - 1));
+        LocalDate endDate = startDate.plusDays(1 + random.nextInt(2));
+        long roomId = 1 + random.nextInt(loadProfile.rooms());
+        long userId = 1 + random.nextInt(loadProfile.users());
+
+        String body = switch (operation) {
+            case NEW -> """
+                    {"userId": %d, "roomId": %d, "startDate": "%s", "endDate": "%s"}
+                    """.formatted(userId, roomId, startDate, endDate);
+            case UPDATE -> """
+                    {"reservationId": %d, "startDate": "%s", "endDate": "%s"}
+                    """.formatted(reservationId, startDate, endDate);
+            case CANCEL -> "";
+            case CHECK_AVAILABILITY -> """
+                    {"roomId": %d, "startDate": "%s", "endDate": "%s"}
+                    """.formatted(roomId, startDate, endDate);
+        };
+        String path = operation == Operation.CANCEL ? operation.path + reservationId : operation.path;
+        return HttpRequest.newBuilder(loadProfile.baseUrl().resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private Long readReservationId(String body) {
+        try {
+            return objectMapper.readTree(body).get("reservationId").asLong();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unexpected booking response " + body, e);
+        }
+    }
+
+    public enum Operation {
+        NEW("api/v1/reservation/new"),
+        UPDATE("api/v1/reservation/update"),
+        CANCEL("api/v1/reservation/cancel/"),
+        CHECK_AVAILABILITY("api/v1/reservation/check-availability");
+
+        private final String path;
+
+        Operation(String path) {
+            this.path = path;
+        }
+    }
+
+    /**
+     * Success is a 2xx answer, a rejection is a 4xx answer such as a conflict or a throttled request, and a
+     * failure is a 5xx answer or a request that got no answer at all.
+     */
+    private static final class OperationRecorder {
+        private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final Map<Integer, LongAdder> rejectedByStatus = new ConcurrentHashMap<>();
+
+        void record(int status, long latencyNanos) {
+            latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+            if (status >= 200 && status < 300) {
+                succeeded.increment();
+            } else if (status >= 400 && status < 500) {
+                rejectedByStatus.computeIfAbsent(status, key -> new LongAdder()).increment();
+            } else {
+                failed.increment();
+            }
+        }
+
+        LoadReport.OperationResult toResult() {
+            Map<Integer, Long> rejected = new TreeMap<>();
+            rejectedByStatus.forEach((status, count) -> rejected.put(status, count.sum()));
+            return new LoadReport.OperationResult(latencies.copy(), succeeded.sum(), rejected, failed.sum());
+        }
+    }
+}
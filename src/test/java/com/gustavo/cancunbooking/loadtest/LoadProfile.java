@@ -0,0 +1,65 @@
+package com.gustavo.cancunbooking.loadtest;
+
+import com.gustavo.cancunbooking.loadtest.LoadDriver.Operation;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * What the {@link LoadDriver} sends: requests per second, for how long, and the share of every operation in the
+ * mix, written as {@code new=20,update=10,cancel=5,check-availability=65}. Rooms and users are picked among the
+ * ids the {@link LoadTestDataSeeder} created.
+ */
+public record LoadProfile(URI baseUrl, int targetRate, Duration duration, Map<Operation, Integer> mix,
+                          int rooms, int users, long seed) {
+
+    public LoadProfile {
+        if (targetRate < 1) {
+            throw new IllegalArgumentException("The target rate must be at least 1 request per second");
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() < 1) {
+            throw new IllegalArgumentException("The operation mix must have at least one operation");
+        }
+    }
+
+    /**
+     * The profile set with {@code -Dloadtest.rate}, {@code -Dloadtest.duration}, {@code -Dloadtest.mix} and
+     * {@code -Dloadtest.seed}, against an application seeded with the given rooms and users.
+     */
+    public static LoadProfile fromSystemProperties(URI baseUrl, int rooms, int users) {
+        return new LoadProfile(
+                baseUrl,
+                Integer.getInteger("loadtest.rate", 200),
+                Duration.parse(System.getProperty("loadtest.duration", "PT30S")),
+                parseMix(System.getProperty("loadtest.mix", "new=20,update=10,cancel=5,check-availability=65")),
+                rooms,
+                users,
+                Long.getLong("loadtest.seed", 42L));
+    }
+
+    public static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] operationAndWeight = entry.trim().split("=");
+            Operation operation = Operation.valueOf(operationAndWeight[0].trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            weights.put(operation, Integer.parseInt(operationAndWeight[1].trim()));
+        }
+        return weights;
+    }
+
+    Operation pickOperation(SplittableRandom random) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int pick = random.nextInt(total);
+        for (Map.Entry<Operation, Integer> weight : mix.entrySet()) {
+            pick -= weight.getValue();
+            if (pick < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+}
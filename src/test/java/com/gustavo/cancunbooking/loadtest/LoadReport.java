@@ -0,0 +1,83 @@
+package com.gustavo.cancunbooking.loadtest;
+
+import com.gustavo.cancunbooking.loadtest.LoadDriver.Operation;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Formatter;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Throughput, rejections and latency percentiles of a load run by operation. Latencies are recorded in
+ * microseconds, and {@link #writeHistograms(Path)} writes them in the .hgrm format read by the HdrHistogram plotter.
+ */
+public record LoadReport(int targetRate, Duration elapsed, Map<Operation, OperationResult> results) {
+
+    public long failedRequests() {
+        return results.values().stream().mapToLong(OperationResult::failed).sum();
+    }
+
+    public void print(PrintStream out) {
+        out.print(summary());
+    }
+
+    public String summary() {
+        var out = new Formatter(Locale.ROOT);
+        double seconds = elapsed.toNanos() / 1e9;
+        long requests = results.values().stream().mapToLong(OperationResult::requests).sum();
+        out.format("target %d req/s, sent %d requests in %.1f s, %.0f req/s%n",
+                targetRate, requests, seconds, requests / seconds);
+        out.format("%-20s %9s %9s %9s %9s %9s %9s %9s %9s  %s%n",
+                "operation", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "failed", "rejected by status");
+        results.forEach((operation, result) -> {
+            Histogram latencies = result.latencies();
+            out.format("%-20s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9d  %s%n",
+                    operation.name().toLowerCase(Locale.ROOT).replace('_', '-'),
+                    result.requests(),
+                    result.requests() / seconds,
+                    millis(latencies.getValueAtPercentile(50)),
+                    millis(latencies.getValueAtPercentile(90)),
+                    millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)),
+                    millis(latencies.getMaxValue()),
+                    result.failed(),
+                    result.rejectedByStatus().isEmpty() ? "-" : rejectionRates(result));
+        });
+        return out.toString();
+    }
+
+    public void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<Operation, OperationResult> result : results.entrySet()) {
+            Path file = directory.resolve(result.getKey().name().toLowerCase(Locale.ROOT).replace('_', '-') + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                // values are in microseconds, scaled to milliseconds
+                result.getValue().latencies().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private static String rejectionRates(OperationResult result) {
+        StringBuilder rates = new StringBuilder();
+        result.rejectedByStatus().forEach((status, count) -> rates
+                .append(rates.isEmpty() ? "" : ", ")
+                .append(String.format(Locale.ROOT, "%d: %d (%.1f%%)", status, count, 100.0 * count / result.requests())));
+        return rates.toString();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    public record OperationResult(Histogram latencies, long succeeded, Map<Integer, Long> rejectedByStatus, long failed) {
+
+        public long requests() {
+            return succeeded + failed + rejectedByStatus.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+}
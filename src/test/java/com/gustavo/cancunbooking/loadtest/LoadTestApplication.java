@@ -0,0 +1,17 @@
+package com.gustavo.cancunbooking.loadtest;
+
+import com.gustavo.cancunbooking.CancunbookingApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+/**
+ * Boots the application on the embedded, seeded database of the loadtest profile, run with
+ * {@code mvn spring-boot:test-run}.
+ */
+public class LoadTestApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(CancunbookingApplication.class)
+                .profiles("loadtest")
+                .run(args);
+    }
+}
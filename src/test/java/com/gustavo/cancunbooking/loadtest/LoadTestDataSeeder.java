@@ -0,0 +1,155 @@
+package com.gustavo.cancunbooking.loadtest;
+
+import com.gustavo.cancunbooking.model.ReservationStatusEnum;
+import com.gustavo.cancunbooking.services.OccupancyStatistics;
+import com.gustavo.cancunbooking.services.ReservationServiceImpl;
+import com.gustavo.cancunbooking.services.RoomOccupancyIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeds the embedded database of the loadtest profile with rooms, users and a reservation history. Every room gets
+ * back to back stays of one or two nights over the history and the booking window, finished when they ended
+ * before today and active otherwise. The seed makes every run start from the same data.
+ * <p>
+ * The occupancy index and the statistics are loaded before the runners, so they are loaded again once the data
+ * is in, the statistics only when they are enabled. Runners finish before the readiness probe accepts traffic.
+ */
+@Slf4j
+@Component
+@Profile("loadtest")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class LoadTestDataSeeder implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final double CANCELLED_SHARE = 0.1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RoomOccupancyIndex roomOccupancyIndex;
+    private final OccupancyStatistics occupancyStatistics;
+    private final Clock clock;
+    private final int rooms;
+    private final int users;
+    private final int historyDays;
+    private final double occupancy;
+    private final long seed;
+
+    @Autowired
+    public LoadTestDataSeeder(
+            JdbcTemplate jdbcTemplate,
+            RoomOccupancyIndex roomOccupancyIndex,
+            OccupancyStatistics occupancyStatistics,
+            Clock clock,
+            @Value("${cancunbooking.loadtest.rooms:2000}") int rooms,
+            @Value("${cancunbooking.loadtest.users:10000}") int users,
+            @Value("${cancunbooking.loadtest.history-days:365}") int historyDays,
+            @Value("${cancunbooking.loadtest.occupancy:0.6}") double occupancy,
+            @Value("${cancunbooking.loadtest.seed:42}") long seed
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.roomOccupancyIndex = roomOccupancyIndex;
+        this.occupancyStatistics = occupancyStatistics;
+        this.clock = clock;
+        this.rooms = rooms;
+        this.users = users;
+        this.historyDays = historyDays;
+        this.occupancy = occupancy;
+        this.seed = seed;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long startNanos = System.nanoTime();
+        insertUsers();
+        insertRooms();
+        int reservations = insertReservations();
+        roomOccupancyIndex.load();
+        if (occupancyStatistics.isEnabled()) {
+            occupancyStatistics.rebuild();
+        }
+
+        log.info("Seeded {} rooms, {} users and {} reservations in {} ms",
+                rooms, users, reservations, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    private void insertUsers() {
+        List<Object[]> rows = new ArrayList<>(users);
+        for (int user = 1; user <= users; user++) {
+            rows.add(new Object[]{"User " + user, "user" + user + "@loadtest.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into users(name, email) values (?, ?)", rows);
+    }
+
+    private void insertRooms() {
+        List<Object[]> rows = new ArrayList<>(rooms);
+        for (int room = 1; room <= rooms; room++) {
+            rows.add(new Object[]{room});
+        }
+        jdbcTemplate.batchUpdate("insert into room(number) values (?)", rows);
+    }
+
+    private int insertReservations() {
+        var random = new SplittableRandom(seed);
+        LocalDate today = LocalDate.now(clock);
+        long firstDay = today.minusDays(historyDays).toEpochDay();
+        long lastDay = today.plusDays(ReservationServiceImpl.MAXIMUM_FUTURE_DAYS_ALLOWED).toEpochDay();
+        // stays take 2.5 days on average, so starting one on a free day with this probability books the occupancy
+        double stayProbability = occupancy / (2.5 - 1.5 * occupancy);
+
+        long reservationId = 0;
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (long roomId = 1; roomId <= rooms; roomId++) {
+            long day = firstDay;
+            while (day <= lastDay) {
+                if (random.nextDouble() >= stayProbability) {
+                    day++;
+                    continue;
+                }
+
+                LocalDate startDate = LocalDate.ofEpochDay(day);
+                LocalDate endDate = startDate.plusDays(1 + random.nextInt(2));
+                rows.add(new Object[]{++reservationId, Date.valueOf(startDate), Date.valueOf(endDate),
+                        1 + random.nextInt(users), roomId, status(random, endDate, today).name()});
+                if (rows.size() == BATCH_SIZE) {
+                    insertReservationBatch(rows);
+                }
+                day = endDate.toEpochDay() + 1;
+            }
+        }
+        insertReservationBatch(rows);
+
+        // ids are drawn from the sequence in pools, so it restarts a pool past the seeded ids
+        jdbcTemplate.execute("alter sequence RESERVATION_SEQ restart with " + (reservationId + 100));
+        return (int) reservationId;
+    }
+
+    private void insertReservationBatch(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(
+                "insert into reservation(id, start_date, end_date, user_id, room_id, status, version) values (?, ?, ?, ?, ?, ?, 0)",
+                rows);
+        rows.clear();
+    }
+
+    private static ReservationStatusEnum status(SplittableRandom random, LocalDate endDate, LocalDate today) {
+        if (random.nextDouble() < CANCELLED_SHARE) {
+            return ReservationStatusEnum.CANCELLED;
+        }
+        return endDate.isBefore(today) ? ReservationStatusEnum.FINISHED : ReservationStatusEnum.ACTIVE;
+    }
+}
@@ -0,0 +1,111 @@
+package com.gustavo.cancunbooking.loadtest;
+
+import com.gustavo.cancunbooking.CancunbookingApplication;
+import com.gustavo.cancunbooking.loadtest.LoadDriver.Operation;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * Drives the same operation mix with the {@link LoadDriver} against the loadtest profile in the default platform
+ * thread mode and with the virtual-threads profile, and compares the p99 latency of bookings and the highest number
+ * of bookings the server was handling at once. Both runs use the same connection pool and are measured after an
+ * unrecorded warm-up at the same rate, so the thread mode is the only difference between them. Run with
+ * {@code mvn test -Dtest=VirtualThreadsLoadTest -Dloadtest=true}, tuned with the {@code -Dloadtest.*} properties of
+ * {@link BookingLoadTest}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class VirtualThreadsLoadTest {
+
+    private static final int POOL_SIZE = 20;
+    private static final long CONNECTION_TIMEOUT_MS = 2000;
+    private static final Duration WARM_UP = Duration.ofSeconds(10);
+    // latencies of two runs on the same machine still differ a little, so the comparison allows this much noise
+    private static final double P99_TOLERANCE = 1.2;
+
+    @Test
+    public void shouldBookWithVirtualThreadsAtLeastAsFastAsWithPlatformThreads() {
+        // when
+        ModeResult platformThreads = runLoad("platform", "loadtest");
+        ModeResult virtualThreads = runLoad("virtual", "loadtest", "virtual-threads");
+
+        // then
+        log.info("platform threads, max in-flight bookings {}\n{}", platformThreads.maxInFlightBookings(), platformThreads.report().summary());
+        log.info("virtual threads, max in-flight bookings {}\n{}", virtualThreads.maxInFlightBookings(), virtualThreads.report().summary());
+        then(platformThreads.report().failedRequests()).isZero();
+        then(virtualThreads.report().failedRequests()).isZero();
+        then(virtualThreads.bookingP99Micros())
+                .as("booking p99 of %d us with virtual threads against %d us with platform threads",
+                        virtualThreads.bookingP99Micros(), platformThreads.bookingP99Micros())
+                .isLessThanOrEqualTo((long) (platformThreads.bookingP99Micros() * P99_TOLERANCE));
+    }
+
+    private static ModeResult runLoad(String mode, String... profiles) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CancunbookingApplication.class, InFlightBookingsFilter.class)
+                .profiles(profiles)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:cancundb-loadtest-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        "--spring.datasource.hikari.minimum-idle=" + POOL_SIZE,
+                        "--spring.datasource.hikari.connection-timeout=" + CONNECTION_TIMEOUT_MS)) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            var loadProfile = LoadProfile.fromSystemProperties(URI.create("http://localhost:" + port + "/"),
+                    context.getEnvironment().getRequiredProperty("cancunbooking.loadtest.rooms", Integer.class),
+                    context.getEnvironment().getRequiredProperty("cancunbooking.loadtest.users", Integer.class));
+
+            HttpClient httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+            new LoadDriver(httpClient, new LoadProfile(loadProfile.baseUrl(), loadProfile.targetRate(), WARM_UP,
+                    loadProfile.mix(), loadProfile.rooms(), loadProfile.users(), loadProfile.seed())).run();
+            InFlightBookingsFilter inFlightBookings = context.getBean(InFlightBookingsFilter.class);
+            inFlightBookings.maxInFlight.set(0);
+
+            LoadReport report = new LoadDriver(httpClient, loadProfile).run();
+            return new ModeResult(report, inFlightBookings.maxInFlight.get());
+        }
+    }
+
+    record ModeResult(LoadReport report, long maxInFlightBookings) {
+
+        long bookingP99Micros() {
+            return report.results().get(Operation.NEW).latencies().getValueAtPercentile(99);
+        }
+    }
+
+    static class InFlightBookingsFilter extends OncePerRequestFilter {
+        private final AtomicLong inFlight = new AtomicLong();
+        private final AtomicLong maxInFlight = new AtomicLong();
+
+        @Override
+        protected boolean shouldNotFilter(HttpServletRequest request) {
+            return !request.getRequestURI().endsWith("/reservation/new");
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws ServletException, IOException {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.gustavo.cancunbooking.repositories;
+
+import com.gustavo.cancunbooking.beans.CacheConfig;
+import com.gustavo.cancunbooking.model.Room;
+import com.gustavo.cancunbooking.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RoomAndUserCacheTest {
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    public void shouldServeRepeatedRoomLookupsFromTheCache() {
+        // given
+        var room = new Room();
+        room.setNumber(501);
+        Long roomId = roomRepository.save(room).getId();
+
+        // when
+        Room first = roomRepository.findById(roomId).orElseThrow();
+        Room second = roomRepository.findById(roomId).orElseThrow();
+
+        // then
+        then(second).isSameAs(first);
+        then(cacheManager.getCache(CacheConfig.ROOMS_CACHE).get(roomId)).isNotNull();
+    }
+
+    @Test
+    public void shouldRefreshTheCachedUserWhenItIsSaved() {
+        // given
+        var user = new User();
+        user.setName("Cached User");
+        user.setEmail("cached@email.com");
+        Long userId = userRepository.save(user).getId();
+        userRepository.findById(userId).orElseThrow();
+
+        // when
+        user.setName("Renamed User");
+        userRepository.save(user);
+
+        // then
+        then(userRepository.findById(userId).orElseThrow().getName()).isEqualTo("Renamed User");
+    }
+
+    @Test
+    public void shouldEvictTheCachedRoomWhenItIsDeleted() {
+        // given
+        var room = new Room();
+        room.setNumber(502);
+        Long roomId = roomRepository.save(room).getId();
+        roomRepository.findById(roomId).orElseThrow();
+
+        // when
+        roomRepository.deleteById(roomId);
+
+        // then
+        then(cacheManager.getCache(CacheConfig.ROOMS_CACHE).get(roomId)).isNull();
+        then(roomRepository.findById(roomId)).isEmpty();
+    }
+
+    @Test
+    public void shouldRefreshTheCachedUserWhenItIsSavedAndFlushed() {
+        // given
+        var user = new User();
+        user.setName("Flushed User");
+        user.setEmail("flushed@email.com");
+        Long userId = userRepository.saveAndFlush(user).getId();
+        userRepository.findById(userId).orElseThrow();
+
+        // when
+        user.setName("Renamed Flushed User");
+        userRepository.saveAndFlush(user);
+
+        // then
+        then(userRepository.findById(userId).orElseThrow().getName()).isEqualTo("Renamed Flushed User");
+    }
+
+    @Test
+    public void shouldEvictTheCachedRoomsWhenTheyAreDeletedInBatch() {
+        // given
+        var room = new Room();
+        room.setNumber(503);
+        Long roomId = roomRepository.save(room).getId();
+        roomRepository.findById(roomId).orElseThrow();
+
+        // when
+        roomRepository.deleteAllByIdInBatch(List.of(roomId));
+
+        // then
+        then(cacheManager.getCache(CacheConfig.ROOMS_CACHE).get(roomId)).isNull();
+        then(roomRepository.findById(roomId)).isEmpty();
+    }
+}
@@ -0,0 +1,108 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.controllers.response.RoomAvailabilityChangeDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+class AvailabilityChangePublisherTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2023, 1, 1);
+
+    SimpleMeterRegistry meterRegistry;
+
+    List<Runnable> pendingDrains;
+
+    AvailabilityChangePublisher availabilityChangePublisher;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pendingDrains = new ArrayList<>();
+        availabilityChangePublisher = new AvailabilityChangePublisher(pendingDrains::add, meterRegistry, 4);
+    }
+
+    @Test
+    public void shouldDeliverOnlyTheChangesOfTheSubscribedRooms() {
+        // given
+        List<RoomAvailabilityChangeDTO> roomOneChanges = new ArrayList<>();
+        List<RoomAvailabilityChangeDTO> allChanges = new ArrayList<>();
+        availabilityChangePublisher.subscribe(Set.of(1L), roomOneChanges::add);
+        availabilityChangePublisher.subscribe(Set.of(), allChanges::add);
+
+        // when
+        availabilityChangePublisher.publish(1L, TODAY.plusDays(1), TODAY.plusDays(2), false);
+        availabilityChangePublisher.publish(2L, TODAY.plusDays(1), TODAY.plusDays(2), false);
+        runPendingDrains();
+
+        // then
+        then(roomOneChanges).extracting(RoomAvailabilityChangeDTO::getRoomId).containsExactly(1L);
+        then(allChanges).extracting(RoomAvailabilityChangeDTO::getRoomId).containsExactly(1L, 2L);
+        then(allChanges).extracting(RoomAvailabilityChangeDTO::getSequence).containsExactly(1L, 2L);
+    }
+
+    @Test
+    public void shouldNumberTheChangesOfEverySubscriptionWithoutGaps() {
+        // given
+        List<RoomAvailabilityChangeDTO> roomTwoChanges = new ArrayList<>();
+        availabilityChangePublisher.subscribe(Set.of(2L), roomTwoChanges::add);
+
+        // when
+        availabilityChangePublisher.publish(1L, TODAY.plusDays(1), TODAY.plusDays(1), false);
+        availabilityChangePublisher.publish(2L, TODAY.plusDays(1), TODAY.plusDays(1), false);
+        availabilityChangePublisher.publish(1L, TODAY.plusDays(2), TODAY.plusDays(2), false);
+        availabilityChangePublisher.publish(2L, TODAY.plusDays(2), TODAY.plusDays(2), false);
+        runPendingDrains();
+
+        // then
+        then(roomTwoChanges).extracting(RoomAvailabilityChangeDTO::getSequence).containsExactly(1L, 2L);
+    }
+
+    @Test
+    public void shouldDropTheOldestChangesOfASubscriberThatFellBehind() {
+        // given
+        List<RoomAvailabilityChangeDTO> changes = new ArrayList<>();
+        availabilityChangePublisher.subscribe(Set.of(1L), changes::add);
+
+        // when
+        for (int day = 1; day <= 6; day++) {
+            availabilityChangePublisher.publish(1L, TODAY.plusDays(day), TODAY.plusDays(day), false);
+        }
+        runPendingDrains();
+
+        // then
+        then(changes).extracting(RoomAvailabilityChangeDTO::getSequence).containsExactly(3L, 4L, 5L, 6L);
+        then(meterRegistry.get(AvailabilityChangePublisher.DROPPED_METRIC).counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldCancelTheSubscriptionOfAClientThatWentAway() {
+        // given
+        availabilityChangePublisher.subscribe(Set.of(1L), change -> {
+            throw new IOException("Broken pipe");
+        });
+
+        // when
+        availabilityChangePublisher.publish(1L, TODAY.plusDays(1), TODAY.plusDays(1), false);
+        runPendingDrains();
+        availabilityChangePublisher.publish(1L, TODAY.plusDays(2), TODAY.plusDays(2), false);
+
+        // then
+        then(pendingDrains).isEmpty();
+        then(meterRegistry.get(AvailabilityChangePublisher.SUBSCRIBERS_METRIC).gauge().value()).isZero();
+    }
+
+    private void runPendingDrains() {
+        while (!pendingDrains.isEmpty()) {
+            pendingDrains.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.repositories.ReservationArchiveRepository;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.projections.OccupiedPeriod;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class OccupancyStatisticsTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private ReservationArchiveRepository reservationArchiveRepository;
+
+    @Test
+    public void shouldRebuildFromReservationsAndArchiveInChunks() {
+        // given
+        var occupancyStatistics = new OccupancyStatistics(reservationRepository, reservationArchiveRepository, 2, true);
+        given(reservationRepository.findOccupiedPeriodsAfter(0L, Limit.of(2))).willReturn(List.of(
+                new OccupiedPeriod(1L, 1L, LocalDate.of(2023, 1, 30), LocalDate.of(2023, 2, 2)),
+                new OccupiedPeriod(4L, 2L, LocalDate.of(2023, 1, 31), LocalDate.of(2023, 1, 31))));
+        given(reservationRepository.findOccupiedPeriodsAfter(4L, Limit.of(2))).willReturn(List.of(
+                new OccupiedPeriod(7L, 1L, LocalDate.of(2023, 2, 10), LocalDate.of(2023, 2, 11))));
+        given(reservationArchiveRepository.findOccupiedPeriodsAfter(0L, Limit.of(2))).willReturn(List.of(
+                new OccupiedPeriod(2L, 2L, LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 3))));
+
+        // when
+        int periods = occupancyStatistics.rebuild();
+
+        // then
+        then(periods).isEqualTo(4);
+        var january = occupancyStatistics.getMonth(YearMonth.of(2023, 1));
+        then(january.occupiedRoomsByDay()).hasSize(31);
+        then(january.occupiedRoomsByDay()[0]).isEqualTo(1);
+        then(january.occupiedRoomsByDay()[3]).isZero();
+        then(january.occupiedRoomsByDay()[29]).isEqualTo(1);
+        then(january.occupiedRoomsByDay()[30]).isEqualTo(2);
+        then(january.occupiedDaysByRoom()).containsEntry(1L, 2).containsEntry(2L, 4);
+        var february = occupancyStatistics.getMonth(YearMonth.of(2023, 2));
+        then(february.occupiedRoomsByDay()).hasSize(28);
+        then(february.occupiedDaysByRoom()).containsOnlyKeys(1L).containsEntry(1L, 4);
+    }
+
+    @Test
+    public void shouldAddAndRemoveCommittedPeriods() {
+        // given
+        var occupancyStatistics = new OccupancyStatistics(reservationRepository, reservationArchiveRepository, 2, true);
+        occupancyStatistics.add(1L, LocalDate.of(2023, 3, 5), LocalDate.of(2023, 3, 7));
+        occupancyStatistics.add(2L, LocalDate.of(2023, 3, 6), LocalDate.of(2023, 3, 6));
+
+        // when
+        occupancyStatistics.remove(1L, LocalDate.of(2023, 3, 5), LocalDate.of(2023, 3, 7));
+
+        // then
+        var march = occupancyStatistics.getMonth(YearMonth.of(2023, 3));
+        then(march.occupiedRoomsByDay()[4]).isZero();
+        then(march.occupiedRoomsByDay()[5]).isEqualTo(1);
+        then(march.occupiedDaysByRoom()).containsOnlyKeys(2L).containsEntry(2L, 1);
+        then(occupancyStatistics.getMonth(YearMonth.of(2023, 4)).occupiedDaysByRoom()).isEmpty();
+    }
+
+    @Test
+    public void shouldNeitherScanNorCountWhenDisabled() {
+        // given
+        var occupancyStatistics = new OccupancyStatistics(reservationRepository, reservationArchiveRepository, 2, false);
+
+        // when
+        occupancyStatistics.load();
+        occupancyStatistics.add(1L, LocalDate.of(2023, 3, 5), LocalDate.of(2023, 3, 7));
+
+        // then
+        then(occupancyStatistics.isEnabled()).isFalse();
+        then(occupancyStatistics.getMonth(YearMonth.of(2023, 3)).occupiedDaysByRoom()).isEmpty();
+        verifyNoInteractions(reservationRepository, reservationArchiveRepository);
+    }
+}
@@ -0,0 +1,105 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.controllers.response.ArchivedReservationResponseDTO;
+import com.gustavo.cancunbooking.model.Reservation;
+import com.gustavo.cancunbooking.model.ReservationStatusEnum;
+import com.gustavo.cancunbooking.model.Room;
+import com.gustavo.cancunbooking.model.User;
+import com.gustavo.cancunbooking.repositories.ReservationArchiveRepository;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.RoomRepository;
+import com.gustavo.cancunbooking.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {"cancunbooking.archive.retention-days=90", "cancunbooking.archive.chunk-size=3"})
+class ReservationArchiverTest {
+
+    @Autowired
+    private ReservationArchiver reservationArchiver;
+
+    @Autowired
+    private ReservationArchiveService reservationArchiveService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ReservationArchiveRepository reservationArchiveRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Room room;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        room = new Room();
+        room.setNumber(2_000);
+        room = roomRepository.save(room);
+
+        user = new User();
+        user.setName("Archived User");
+        user.setEmail("archived@email.com");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    public void shouldMoveOldInactiveReservationsToTheArchiveInChunks() {
+        // given
+        LocalDate longAgo = LocalDate.now().minusDays(200);
+        List<Long> oldInactiveIds = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            var status = i % 2 == 0 ? ReservationStatusEnum.FINISHED : ReservationStatusEnum.CANCELLED;
+            oldInactiveIds.add(saveReservation(longAgo.plusDays(i * 3L), status).getId());
+        }
+        Long oldActiveId = saveReservation(longAgo, ReservationStatusEnum.ACTIVE).getId();
+        Long recentFinishedId = saveReservation(LocalDate.now().minusDays(10), ReservationStatusEnum.FINISHED).getId();
+
+        // when
+        int archived = reservationArchiver.archiveReservations();
+
+        // then
+        then(archived).isEqualTo(oldInactiveIds.size());
+        then(reservationRepository.findAllById(oldInactiveIds)).isEmpty();
+        then(reservationArchiveRepository.findAllById(oldInactiveIds)).hasSize(oldInactiveIds.size());
+        then(reservationRepository.existsById(oldActiveId)).isTrue();
+        then(reservationRepository.existsById(recentFinishedId)).isTrue();
+        then(reservationArchiver.archiveReservations()).isZero();
+
+        List<ArchivedReservationResponseDTO> roomHistory = reservationArchiveService.findArchivedReservationsOfRoom(
+                room.getId(), longAgo, longAgo.plusDays(6), 0, 50);
+        then(roomHistory).extracting(ArchivedReservationResponseDTO::getReservationId)
+                .containsExactly(oldInactiveIds.get(0), oldInactiveIds.get(1), oldInactiveIds.get(2));
+        then(reservationArchiveService.findArchivedReservationsOfUser(user.getId(), 1, 5)).hasSize(2);
+        then(reservationArchiveService.getArchivedReservation(oldInactiveIds.get(1)).getStatus())
+                .isEqualTo(ReservationStatusEnum.CANCELLED);
+    }
+
+    private Reservation saveReservation(LocalDate startDate, ReservationStatusEnum status) {
+        var reservation = new Reservation();
+        reservation.setRoom(room);
+        reservation.setUser(user);
+        reservation.setStartDate(startDate);
+        reservation.setEndDate(startDate.plusDays(1));
+        reservation.setStatus(status);
+        return reservationRepository.save(reservation);
+    }
+}
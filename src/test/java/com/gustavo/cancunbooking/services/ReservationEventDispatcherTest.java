@@ -0,0 +1,112 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.model.ReservationEvent;
+import com.gustavo.cancunbooking.model.ReservationEventTypeEnum;
+import com.gustavo.cancunbooking.repositories.ReservationEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationEventDispatcherTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 1, 1, 10, 30);
+
+    SimpleMeterRegistry meterRegistry;
+
+    List<List<ReservationEvent>> deliveredBatches;
+
+    @Mock
+    private ReservationEventRepository reservationEventRepository;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        deliveredBatches = new ArrayList<>();
+    }
+
+    @Test
+    public void shouldHandThePendingEventsToEverySinkInBatchesAndRemoveThem() {
+        // given
+        List<List<ReservationEvent>> otherSinkBatches = new ArrayList<>();
+        var reservationEventDispatcher = createDispatcher(List.of(deliveredBatches::add, otherSinkBatches::add));
+        var event1 = createEvent(1L, NOW.minusSeconds(3));
+        var event2 = createEvent(2L, NOW.minusSeconds(2));
+        var event3 = createEvent(3L, NOW.minusSeconds(1));
+        given(reservationEventRepository.findOldest(Limit.of(2)))
+                .willReturn(List.of(event1, event2))
+                .willReturn(List.of(event3));
+        given(reservationEventRepository.findFirstByOrderByIdAsc()).willReturn(Optional.empty());
+
+        // when
+        int dispatched = reservationEventDispatcher.dispatchPendingEvents();
+
+        // then
+        then(dispatched).isEqualTo(3);
+        then(deliveredBatches).containsExactly(List.of(event1, event2), List.of(event3));
+        then(otherSinkBatches).isEqualTo(deliveredBatches);
+        verify(reservationEventRepository).deleteDispatched(List.of(1L, 2L));
+        verify(reservationEventRepository).deleteDispatched(List.of(3L));
+        then(meterRegistry.get(ReservationEventDispatcher.DISPATCHED_METRIC).counter().count()).isEqualTo(3);
+        then(meterRegistry.get(ReservationEventDispatcher.LAG_METRIC).timer().max(TimeUnit.SECONDS)).isEqualTo(3);
+        then(meterRegistry.get(ReservationEventDispatcher.OLDEST_PENDING_METRIC).gauge().value()).isZero();
+    }
+
+    @Test
+    public void shouldKeepTheEventsInTheOutboxWhenASinkFails() {
+        // given
+        var reservationEventDispatcher = createDispatcher(List.of(events -> {
+            throw new IllegalStateException("Sink unavailable");
+        }));
+        var event = createEvent(1L, NOW.minusSeconds(30));
+        given(reservationEventRepository.findOldest(Limit.of(2))).willReturn(List.of(event));
+        given(reservationEventRepository.findFirstByOrderByIdAsc()).willReturn(Optional.of(event));
+
+        // when
+        int dispatched = reservationEventDispatcher.dispatchPendingEvents();
+
+        // then
+        then(dispatched).isZero();
+        verify(reservationEventRepository, never()).deleteDispatched(anyList());
+        then(meterRegistry.get(ReservationEventDispatcher.FAILURES_METRIC).counter().count()).isEqualTo(1);
+        then(meterRegistry.get(ReservationEventDispatcher.OLDEST_PENDING_METRIC).gauge().value()).isEqualTo(30);
+    }
+
+    private ReservationEventDispatcher createDispatcher(List<ReservationEventSink> sinks) {
+        Clock fixedClock = Clock.fixed(Instant.parse("2023-01-01T10:30:00.00Z"), ZoneOffset.UTC);
+        return new ReservationEventDispatcher(reservationEventRepository, sinks, fixedClock, meterRegistry, 2);
+    }
+
+    private static ReservationEvent createEvent(Long id, LocalDateTime createdAt) {
+        var event = new ReservationEvent();
+        event.setId(id);
+        event.setType(ReservationEventTypeEnum.PLACED);
+        event.setReservationId(id);
+        event.setUserId(1L);
+        event.setRoomId(1L);
+        event.setStartDate(LocalDate.of(2023, 1, 10));
+        event.setEndDate(LocalDate.of(2023, 1, 12));
+        event.setCreatedAt(createdAt);
+        return event;
+    }
+}
@@ -0,0 +1,180 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.model.Reservation;
+import com.gustavo.cancunbooking.model.ReservationStatusEnum;
+import com.gustavo.cancunbooking.model.Room;
+import com.gustavo.cancunbooking.model.User;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.RoomRepository;
+import com.gustavo.cancunbooking.repositories.UserRepository;
+import com.gustavo.cancunbooking.services.ReservationExportService.Format;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "cancunbooking.lifecycle.initial-delay=PT1H")
+class ReservationExportServiceImplTest {
+
+    private static final int MILLION = 1_000_000;
+    private static final long GENERATED_FIRST_ID = 10_000_000L;
+    private static final long MAXIMUM_RETAINED_BYTES = 64L * 1024 * 1024;
+
+    @Autowired
+    private ReservationExportService reservationExportService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Room room;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        room = new Room();
+        room.setNumber(4_000 + (int) roomRepository.count());
+        room = roomRepository.save(room);
+
+        user = new User();
+        user.setName("Exported User");
+        user.setEmail("exported" + room.getNumber() + "@email.com");
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        // far quicker than deleting a million rows one index entry at a time
+        jdbcTemplate.execute("truncate table reservation");
+    }
+
+    @Test
+    public void shouldExportTheReservationsOfThePeriodWithTheRequestedStatuses() throws Exception {
+        // given
+        Reservation finished = saveReservation(LocalDate.of(2023, 3, 1), ReservationStatusEnum.FINISHED);
+        saveReservation(LocalDate.of(2023, 3, 2), ReservationStatusEnum.ACTIVE);
+        Reservation cancelled = saveReservation(LocalDate.of(2023, 3, 3), ReservationStatusEnum.CANCELLED);
+        saveReservation(LocalDate.of(2023, 4, 1), ReservationStatusEnum.FINISHED);
+        var ndjson = new ByteArrayOutputStream();
+        var csv = new ByteArrayOutputStream();
+        Set<ReservationStatusEnum> statuses = Set.of(ReservationStatusEnum.FINISHED, ReservationStatusEnum.CANCELLED);
+
+        // when
+        long ndjsonRows = reservationExportService.exportReservations(LocalDate.of(2023, 3, 1), LocalDate.of(2023, 3, 31), statuses, Format.NDJSON, ndjson);
+        long csvRows = reservationExportService.exportReservations(LocalDate.of(2023, 3, 1), LocalDate.of(2023, 3, 31), statuses, Format.CSV, csv);
+
+        // then
+        then(ndjsonRows).isEqualTo(2);
+        then(csvRows).isEqualTo(2);
+        then(ndjson.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"reservationId\":" + finished.getId() + ",\"userId\":" + user.getId() + ",\"roomId\":" + room.getId()
+                        + ",\"startDate\":\"2023-03-01\",\"endDate\":\"2023-03-02\",\"status\":\"FINISHED\"}\n"
+                + "{\"reservationId\":" + cancelled.getId() + ",\"userId\":" + user.getId() + ",\"roomId\":" + room.getId()
+                        + ",\"startDate\":\"2023-03-03\",\"endDate\":\"2023-03-04\",\"status\":\"CANCELLED\"}\n");
+        then(csv.toString(StandardCharsets.UTF_8)).isEqualTo(ReservationExportServiceImpl.CSV_HEADER
+                + finished.getId() + "," + user.getId() + "," + room.getId() + ",2023-03-01,2023-03-02,FINISHED\n"
+                + cancelled.getId() + "," + user.getId() + "," + room.getId() + ",2023-03-03,2023-03-04,CANCELLED\n");
+    }
+
+    // inserting the rows takes H2 a couple of minutes, run with mvn test -Dtest=ReservationExportServiceImplTest -Dloadtest=true
+    @Test
+    @EnabledIfSystemProperty(named = "loadtest", matches = "true")
+    public void shouldStreamAMillionReservationsWithoutLoadingEntities() throws Exception {
+        // given
+        jdbcTemplate.update("insert into reservation(id, start_date, end_date, user_id, room_id, status, version) " +
+                        "select x + ?, dateadd('DAY', mod(x, 365), date '2023-01-01'), dateadd('DAY', mod(x, 365) + 1, date '2023-01-01'), ?, ?, " +
+                        "case mod(x, 3) when 0 then 'ACTIVE' when 1 then 'FINISHED' else 'CANCELLED' end, 0 " +
+                        "from system_range(0, ?)",
+                GENERATED_FIRST_ID, user.getId(), room.getId(), MILLION - 1);
+        var lineCounter = new LineCountingOutputStream();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        long retainedBytesBefore = retainedHeapBytes();
+
+        // when
+        long startNanos = System.nanoTime();
+        long rows = reservationExportService.exportReservations(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31), null, Format.NDJSON, lineCounter);
+        log.info("Exported {} reservations in {} ms, retaining at most {} KB more heap than before the export",
+                rows, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                (lineCounter.maximumRetainedBytes - retainedBytesBefore) / 1024);
+
+        // then
+        then(rows).isEqualTo(MILLION);
+        then(lineCounter.lines).isEqualTo(MILLION);
+        then(statistics.getPrepareStatementCount()).isEqualTo(1);
+        then(statistics.getEntityLoadCount()).isZero();
+        // a million rows held at once take hundreds of megabytes, a streamed export only holds the fetched page
+        then(lineCounter.maximumRetainedBytes - retainedBytesBefore).isLessThan(MAXIMUM_RETAINED_BYTES);
+    }
+
+    private Reservation saveReservation(LocalDate startDate, ReservationStatusEnum status) {
+        var reservation = new Reservation();
+        reservation.setRoom(room);
+        reservation.setUser(user);
+        reservation.setStartDate(startDate);
+        reservation.setEndDate(startDate.plusDays(1));
+        reservation.setStatus(status);
+        return reservationRepository.save(reservation);
+    }
+
+    // the heap left after a full collection, which is what the export holds on to
+    private static long retainedHeapBytes() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static class LineCountingOutputStream extends OutputStream {
+        private static final long SAMPLED_LINES = 100_000;
+
+        private long lines;
+        private long maximumRetainedBytes;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n' && ++lines % SAMPLED_LINES == 0) {
+                maximumRetainedBytes = Math.max(maximumRetainedBytes, retainedHeapBytes());
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                write(bytes[i]);
+            }
+        }
+    }
+}
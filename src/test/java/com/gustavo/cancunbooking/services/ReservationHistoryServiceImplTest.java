@@ -0,0 +1,137 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.controllers.response.ReservationHistoryPageDTO;
+import com.gustavo.cancunbooking.exceptions.ReservationException;
+import com.gustavo.cancunbooking.exceptions.ReservationRejectionReasonEnum;
+import com.gustavo.cancunbooking.model.Reservation;
+import com.gustavo.cancunbooking.model.ReservationArchive;
+import com.gustavo.cancunbooking.model.ReservationStatusEnum;
+import com.gustavo.cancunbooking.model.Room;
+import com.gustavo.cancunbooking.model.User;
+import com.gustavo.cancunbooking.repositories.ReservationArchiveRepository;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.RoomRepository;
+import com.gustavo.cancunbooking.repositories.UserRepository;
+import com.gustavo.cancunbooking.repositories.projections.ReservationHistoryEntry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReservationHistoryServiceImplTest {
+
+    @Autowired
+    private ReservationHistoryService reservationHistoryService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ReservationArchiveRepository reservationArchiveRepository;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Room room;
+
+    private User user;
+
+    @Test
+    public void shouldPageThroughTheHistoryOfAUserAndItsArchiveWithoutLoadingEntities() {
+        // given
+        room = new Room();
+        room.setNumber(3_000);
+        room = roomRepository.save(room);
+
+        user = new User();
+        user.setName("History User");
+        user.setEmail("history@email.com");
+        user = userRepository.save(user);
+        LocalDate startDate = LocalDate.of(2023, 3, 1);
+        List<Long> expectedIds = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // reservations sharing a start date are ordered by id
+            expectedIds.add(saveReservation(startDate.plusDays(i / 2)).getId());
+        }
+        // archived reservations are interleaved with the ones still in RESERVATION
+        archiveReservation(expectedIds.get(1));
+        archiveReservation(expectedIds.get(2));
+        archiveReservation(expectedIds.get(5));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        userRepository.findById(user.getId());
+        statistics.clear();
+
+        // when
+        List<Long> pagedIds = new ArrayList<>();
+        ReservationHistoryPageDTO page = reservationHistoryService.findReservationsOfUser(user.getId(), null, null, 3);
+        int pages = 1;
+        page.getReservations().forEach(reservation -> pagedIds.add(reservation.reservationId()));
+        while (page.getNextAfterId() != null) {
+            page = reservationHistoryService.findReservationsOfUser(user.getId(), page.getNextAfterStartDate(), page.getNextAfterId(), 3);
+            page.getReservations().forEach(reservation -> pagedIds.add(reservation.reservationId()));
+            pages++;
+        }
+
+        // then
+        then(pagedIds).isEqualTo(expectedIds);
+        then(pages).isEqualTo(3);
+        then(page.getReservations()).extracting(ReservationHistoryEntry::roomId).containsOnly(room.getId());
+        // one scan of RESERVATION and one of RESERVATION_ARCHIVE per page
+        then(statistics.getPrepareStatementCount()).isEqualTo(2L * pages);
+        then(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    public void shouldRejectAHalfGivenPosition() {
+        // when
+        Throwable throwable = catchThrowable(() -> reservationHistoryService.findReservationsOfUser(1L, LocalDate.of(2023, 3, 1), null, 3));
+
+        // then
+        then(throwable).isInstanceOf(ReservationException.class)
+                .hasMessage("The after start date and after id must be provided together");
+        then(((ReservationException) throwable).getReason()).isEqualTo(ReservationRejectionReasonEnum.INVALID_CURSOR);
+    }
+
+    private void archiveReservation(Long reservationId) {
+        Reservation reservation = reservationRepository.findById(reservationId).orElseThrow();
+        var reservationArchive = new ReservationArchive();
+        reservationArchive.setId(reservation.getId());
+        reservationArchive.setUserId(user.getId());
+        reservationArchive.setRoomId(room.getId());
+        reservationArchive.setStartDate(reservation.getStartDate());
+        reservationArchive.setEndDate(reservation.getEndDate());
+        reservationArchive.setStatus(reservation.getStatus());
+        reservationArchive.setArchivedAt(LocalDateTime.of(2023, 4, 1, 0, 0));
+        reservationArchiveRepository.save(reservationArchive);
+        reservationRepository.deleteById(reservationId);
+    }
+
+    private Reservation saveReservation(LocalDate startDate) {
+        var reservation = new Reservation();
+        reservation.setRoom(room);
+        reservation.setUser(user);
+        reservation.setStartDate(startDate);
+        reservation.setEndDate(startDate.plusDays(1));
+        reservation.setStatus(ReservationStatusEnum.FINISHED);
+        return reservationRepository.save(reservation);
+    }
+}
@@ -0,0 +1,262 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.controllers.request.ReservationRequestDTO;
+import com.gustavo.cancunbooking.controllers.response.ReservationSuccessResponseDTO;
+import com.gustavo.cancunbooking.exceptions.ReservationConflictException;
+import com.gustavo.cancunbooking.exceptions.ReservationException;
+import com.gustavo.cancunbooking.model.IdempotencyRecord;
+import com.gustavo.cancunbooking.repositories.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationIdempotencyServiceTest {
+
+    private static final LocalDate START_DATE = LocalDate.of(2023, 1, 10);
+    private static final LocalDate END_DATE = LocalDate.of(2023, 1, 11);
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void shouldReplayTheResponseOfARetriedRequestWithoutPlacingItAgain() {
+        // given
+        var reservationIdempotencyService = createReservationIdempotencyService(false);
+        var request = new ReservationRequestDTO(1L, 1L, START_DATE, END_DATE);
+        given(reservationService.placeReservation(request)).willReturn(createResponse(10L));
+
+        // when
+        var first = reservationIdempotencyService.placeReservation("key-1", request);
+        var retry = reservationIdempotencyService.placeReservation("key-1", new ReservationRequestDTO(1L, 1L, START_DATE, END_DATE));
+
+        // then
+        then(first.isReplayed()).isFalse();
+        then(retry.isReplayed()).isTrue();
+        then(retry.response()).isEqualTo(first.response());
+        verify(reservationService, times(1)).placeReservation(any(ReservationRequestDTO.class));
+    }
+
+    @Test
+    public void shouldNotReuseAKeyForADifferentReservation() {
+        // given
+        var reservationIdempotencyService = createReservationIdempotencyService(false);
+        var request = new ReservationRequestDTO(1L, 1L, START_DATE, END_DATE);
+        given(reservationService.placeReservation(request)).willReturn(createResponse(10L));
+        reservationIdempotencyService.placeReservation("key-1", request);
+
+        // when
+        Throwable thrown = catchThrowable(() -> reservationIdempotencyService.placeReservation("key-1",
+                new ReservationRequestDTO(1L, 2L, START_DATE, END_DATE)));
+
+        // then
+        then(thrown).isInstanceOf(ReservationException.class).hasMessage("The idempotency key was already used for a different reservation");
+        then(meterRegistry.get(ReservationMetrics.REJECTIONS_METRIC)
+                .tags("operation", "place", "reason", "idempotency_key_reused").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldPlaceTheReservationAgainIfTheFirstAttemptWasRejected() {
+        // given
+        var reservationIdempotencyService = createReservationIdempotencyService(false);
+        var request = new ReservationRequestDTO(1L, 1L, START_DATE, END_DATE);
+        given(reservationService.placeReservation(request))
+                .willThrow(new ReservationException("Room is already reserved in the provided period"))
+                .willReturn(createResponse(10L));
+        catchThrowable(() -> reservationIdempotencyService.placeReservation("key-1", request));
+
+        // when
+        var retry = reservationIdempotencyService.placeReservation("key-1", request);
+
+        // then
+        then(retry.isReplayed()).isFalse();
+        then(retry.response().getReservationId()).isEqualTo(10L);
+    }
+
+    @Test
+    public void shouldPlaceTheReservationOnceForConcurrentRequestsWithTheSameKey() throws Exception {
+        // given
+        var reservationIdempotencyService = createReservationIdempotencyService(false);
+        var request = new ReservationRequestDTO(1L, 1L, START_DATE, END_DATE);
+        var placing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            placing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return createResponse(10L);
+        }).given(reservationService).placeReservation(request);
+
+        // when
+        var first = CompletableFuture.supplyAsync(() -> reservationIdempotencyService.placeReservation("key-1", request));
+        placing.await(10, TimeUnit.SECONDS);
+        var second = CompletableFuture.supplyAsync(() -> reservationIdempotencyService.placeReservation("key-1", request));
+        release.countDown();
+
+        // then
+        then(first.get(10, TimeUnit.SECONDS).isReplayed()).isFalse();
+        then(second.get(10, TimeUnit.SECONDS).isReplayed()).isTrue();
+        verify(reservationService, times(1)).placeReservation(any(ReservationRequestDTO.class));
+    }
+
+    @Test
+    public void shouldReplayAResponseFromThePersistentStore() {
+        // given
+        var reservationIdempotencyService = createReservationIdempotencyService(true);
+        given(idempotencyRecordRepository.findById("key-1")).willReturn(Optional.of(createRecord("key-1", 10L)));
+
+        // when
+        var replay = reservationIdempotencyService.placeReservation("key-1", new ReservationRequestDTO(1L, 1L, START_DATE, END_DATE));
+
+        // then
+        then(replay.isReplayed()).isTrue();
+        then(replay.response().getReservationId()).isEqualTo(10L);
+        verify(reservationService, never()).placeReservation(any(ReservationRequestDTO.class));
+    }
+
+    @Test
+    public void shouldSaveTheKeyWithTheReservationWhenThePersistentStoreIsEnabled() {
+        // given
+        var reservationIdempotencyService = createReservationIdempotencyService(true);
+        var request = new ReservationRequestDTO(1L, 1L, START_DATE, END_DATE);
+        given(idempotencyRecordRepository.findById("key-1")).willReturn(Optional.empty());
+        given(reservationService.placeReservation(request)).willReturn(createResponse(10L));
+
+        // when
+        reservationIdempotencyService.placeReservation("key-1", request);
+
+        // then
+        verify(idempotencyRecordRepository).saveAndFlush(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    public void shouldReplayTheReservationOfANodeThatSavedTheKeyFirst() {
+        // given
+        var reservationIdempotencyService = createReservationIdempotencyService(true);
+        var request = new ReservationRequestDTO(1L, 1L, START_DATE, END_DATE);
+        given(idempotencyRecordRepository.findById("key-1"))
+                .willReturn(Optional.empty())
+                .willReturn(Optional.of(createRecord("key-1", 7L)));
+        given(reservationService.placeReservation(request)).willReturn(createResponse(10L));
+        given(idempotencyRecordRepository.saveAndFlush(any(IdempotencyRecord.class)))
+                .willThrow(new DataIntegrityViolationException("Duplicate key"));
+
+        // when
+        var replay = reservationIdempotencyService.placeReservation("key-1", request);
+
+        // then
+        then(replay.isReplayed()).isTrue();
+        then(replay.response().getReservationId()).isEqualTo(7L);
+    }
+
+    @Test
+    public void shouldRejectARetryWhenTheFirstRequestIsStillBeingPlacedAfterTheWaitTimeout() throws Exception {
+        // given
+        var reservationIdempotencyService = createReservationIdempotencyService(false);
+        var request = new ReservationRequestDTO(1L, 1L, START_DATE, END_DATE);
+        var placing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            placing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return createResponse(10L);
+        }).given(reservationService).placeReservation(request);
+        var first = CompletableFuture.supplyAsync(() -> reservationIdempotencyService.placeReservation("key-1", request));
+        placing.await(10, TimeUnit.SECONDS);
+
+        // when
+        Throwable thrown = catchThrowable(() -> reservationIdempotencyService.placeReservation("key-1", request));
+
+        // then
+        then(thrown).isInstanceOf(ReservationConflictException.class)
+                .hasMessage("A request with the same idempotency key is still being processed");
+        release.countDown();
+        then(first.get(10, TimeUnit.SECONDS).isReplayed()).isFalse();
+    }
+
+    @Test
+    public void shouldKeepAKeyBeingPlacedWhenTheStoreIsFull() throws Exception {
+        // given
+        var reservationIdempotencyService = createReservationIdempotencyService(false, 1);
+        var request = new ReservationRequestDTO(1L, 1L, START_DATE, END_DATE);
+        var otherRequest = new ReservationRequestDTO(1L, 2L, START_DATE, END_DATE);
+        var placing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            placing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return createResponse(10L);
+        }).given(reservationService).placeReservation(request);
+        given(reservationService.placeReservation(otherRequest)).willReturn(new ReservationSuccessResponseDTO(11L, 1L, 2L, START_DATE, END_DATE));
+        var first = CompletableFuture.supplyAsync(() -> reservationIdempotencyService.placeReservation("key-1", request));
+        placing.await(10, TimeUnit.SECONDS);
+        for (int i = 0; i < 100; i++) {
+            reservationIdempotencyService.placeReservation("other-key-" + i, otherRequest);
+        }
+
+        // when
+        var retry = CompletableFuture.supplyAsync(() -> reservationIdempotencyService.placeReservation("key-1", request));
+        release.countDown();
+
+        // then
+        then(first.get(10, TimeUnit.SECONDS).isReplayed()).isFalse();
+        then(retry.get(10, TimeUnit.SECONDS).isReplayed()).isTrue();
+        verify(reservationService, times(1)).placeReservation(request);
+    }
+
+    private ReservationIdempotencyService createReservationIdempotencyService(boolean persistent) {
+        return createReservationIdempotencyService(persistent, 100);
+    }
+
+    private ReservationIdempotencyService createReservationIdempotencyService(boolean persistent, long maximumSize) {
+        Clock fixedClock = Clock.fixed(Instant.parse("2023-01-01T10:30:00.00Z"), ZoneOffset.UTC);
+        return new ReservationIdempotencyService(reservationService, new ReservationMetrics(meterRegistry, false),
+                idempotencyRecordRepository, transactionManager,
+                fixedClock, maximumSize, Duration.ofHours(24), Duration.ofMillis(200), persistent);
+    }
+
+    private static IdempotencyRecord createRecord(String idempotencyKey, Long reservationId) {
+        var idempotencyRecord = new IdempotencyRecord();
+        idempotencyRecord.setIdempotencyKey(idempotencyKey);
+        idempotencyRecord.setReservationId(reservationId);
+        idempotencyRecord.setUserId(1L);
+        idempotencyRecord.setRoomId(1L);
+        idempotencyRecord.setStartDate(START_DATE);
+        idempotencyRecord.setEndDate(END_DATE);
+        return idempotencyRecord;
+    }
+
+    private static ReservationSuccessResponseDTO createResponse(Long reservationId) {
+        return new ReservationSuccessResponseDTO(reservationId, 1L, 1L, START_DATE, END_DATE);
+    }
+}
@@ -0,0 +1,76 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationLifecycleSweeperTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2023, 1, 1);
+
+    ReservationLifecycleSweeper reservationLifecycleSweeper;
+
+    SimpleMeterRegistry meterRegistry;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @BeforeEach
+    public void setUp() {
+        Clock fixedClock = Clock.fixed(Instant.parse("2023-01-01T10:30:00.00Z"), ZoneOffset.UTC);
+        meterRegistry = new SimpleMeterRegistry();
+        reservationLifecycleSweeper = new ReservationLifecycleSweeper(reservationRepository, fixedClock, meterRegistry, 2);
+    }
+
+    @Test
+    public void shouldFinishExpiredReservationsInKeysetPaginatedBatches() {
+        // given
+        given(reservationRepository.findActiveReservationIdsEndedBefore(TODAY, 0L, Limit.of(2))).willReturn(List.of(1L, 4L));
+        given(reservationRepository.findActiveReservationIdsEndedBefore(TODAY, 4L, Limit.of(2))).willReturn(List.of(7L));
+        given(reservationRepository.finishActiveReservationsEndedBefore(List.of(1L, 4L), TODAY)).willReturn(2);
+        // the reservation was cancelled or finished by another node in the meantime
+        given(reservationRepository.finishActiveReservationsEndedBefore(List.of(7L), TODAY)).willReturn(0);
+
+        // when
+        int finished = reservationLifecycleSweeper.finishExpiredReservations();
+
+        // then
+        then(finished).isEqualTo(2);
+        then(meterRegistry.get(ReservationLifecycleSweeper.FINISHED_METRIC).counter().count()).isEqualTo(2);
+        then(meterRegistry.get(ReservationLifecycleSweeper.BATCHES_METRIC).timer().count()).isEqualTo(2);
+        then(meterRegistry.get(ReservationLifecycleSweeper.SWEEPS_METRIC).timer().count()).isEqualTo(1);
+        then(meterRegistry.get(ReservationLifecycleSweeper.THROUGHPUT_METRIC).gauge().value()).isPositive();
+    }
+
+    @Test
+    public void shouldNotUpdateAnythingWhenNoReservationHasExpired() {
+        // given
+        given(reservationRepository.findActiveReservationIdsEndedBefore(TODAY, 0L, Limit.of(2))).willReturn(List.of());
+
+        // when
+        int finished = reservationLifecycleSweeper.finishExpiredReservations();
+
+        // then
+        then(finished).isZero();
+        verify(reservationRepository, never()).finishActiveReservationsEndedBefore(anyList(), any(LocalDate.class));
+    }
+}
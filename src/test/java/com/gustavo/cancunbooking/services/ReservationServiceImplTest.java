@@ -1,17 +1,25 @@
 package com.gustavo.cancunbooking.services;
 
+import com.gustavo.cancunbooking.controllers.request.ReservationBatchRequestDTO;
 import com.gustavo.cancunbooking.controllers.request.ReservationRequestDTO;
 import com.gustavo.cancunbooking.controllers.request.ReservationUpdateRequestDTO;
+import com.gustavo.cancunbooking.controllers.response.ReservationBatchResultDTO;
 import com.gustavo.cancunbooking.controllers.response.ReservationSuccessResponseDTO;
-import com.gustavo.cancunbooking.controllers.response.RoomAvailabilityResponseDTO;
+import com.gustavo.cancunbooking.exceptions.ReservationConflictException;
 import com.gustavo.cancunbooking.exceptions.ReservationException;
+import com.gustavo.cancunbooking.exceptions.ReservationRejectionReasonEnum;
 import com.gustavo.cancunbooking.model.Reservation;
+import com.gustavo.cancunbooking.model.ReservationEvent;
+import com.gustavo.cancunbooking.model.ReservationEventTypeEnum;
 import com.gustavo.cancunbooking.model.ReservationStatusEnum;
 import com.gustavo.cancunbooking.model.Room;
 import com.gustavo.cancunbooking.model.User;
+import com.gustavo.cancunbooking.repositories.ReservationArchiveRepository;
+import com.gustavo.cancunbooking.repositories.ReservationEventRepository;
 import com.gustavo.cancunbooking.repositories.ReservationRepository;
 import com.gustavo.cancunbooking.repositories.RoomRepository;
 import com.gustavo.cancunbooking.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,17 +27,27 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,15 +63,32 @@ class ReservationServiceImplTest {
 
     @Mock
     private UserRepository userRepository;
-    
+
     @Mock
-    private RoomAvailabilityService roomAvailabilityService;
+    private ReservationEventRepository reservationEventRepository;
+
+    @Mock
+    private ReservationArchiveRepository reservationArchiveRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    RoomOccupancyIndex roomOccupancyIndex;
+
+    SimpleMeterRegistry meterRegistry;
 
     @Captor
     ArgumentCaptor<Reservation> reservationCaptor;
+
+    @Captor
+    ArgumentCaptor<List<Reservation>> reservationsCaptor;
+
+    @Captor
+    ArgumentCaptor<ReservationEvent> eventCaptor;
+
     @BeforeEach
     public void setUp() {
-        reservationService = new ReservationServiceImpl(reservationRepository,roomRepository, userRepository, roomAvailabilityService, Clock.systemUTC());
+        reservationService = createReservationService(Clock.systemUTC());
     }
 
     @Test
@@ -103,7 +138,7 @@ class ReservationServiceImplTest {
         var clockDateTime = "2023-01-01T10:30:00.00Z";
         Clock fixedClock = createFixedClock(clockDateTime);
 
-        reservationService = new ReservationServiceImpl(reservationRepository, roomRepository, userRepository, roomAvailabilityService, fixedClock);
+        reservationService = createReservationService(fixedClock);
 
         var startDate = LocalDate.of(2023, 2, 1);
         var endDate = LocalDate.of(2023, 2, 2);
@@ -118,20 +153,85 @@ class ReservationServiceImplTest {
 
     @Test
     public void shouldNotBeAbleToPlaceAReservationIfTheRoomIsAlreadyReserved() {
+        // given
+        reservationService = createReservationService(createFixedClock("2023-01-01T10:30:00.00Z"));
 
         var startDate = LocalDate.of(2023, 1, 5);
         var endDate = LocalDate.of(2023, 1, 7);
         ReservationRequestDTO request = createReservationRequest(startDate, endDate);
 
-        var closestAvailableStartDate = LocalDate.of(2023, 1, 8);
-        var roomAvailabilityResponse = new RoomAvailabilityResponseDTO(false, closestAvailableStartDate);
-        given(roomAvailabilityService.getRoomAvailability(startDate, 1L)).willReturn(roomAvailabilityResponse);
+        roomOccupancyIndex.occupy(1L, LocalDate.of(2023, 1, 3), LocalDate.of(2023, 1, 5));
+        givenRoomAndUserExist();
 
         // when
         Throwable thrown = catchThrowable(() -> reservationService.placeReservation(request));
 
         // then
         then(thrown).isInstanceOf(ReservationException.class).hasMessage("Room is already reserved in the provided period");
+        verify(reservationRepository, never()).save(any(Reservation.class));
+    }
+
+    @Test
+    public void shouldCountRejectedReservationsByReason() {
+        // given
+        reservationService = createReservationService(createFixedClock("2023-01-01T10:30:00.00Z"));
+        ReservationRequestDTO request = createReservationRequest(LocalDate.of(2023, 1, 10), LocalDate.of(2023, 1, 9));
+
+        // when
+        catchThrowable(() -> reservationService.placeReservation(request));
+
+        // then
+        then(meterRegistry.get(ReservationMetrics.REJECTIONS_METRIC)
+                .tags("operation", "place", "reason", "start_date_after_end_date").counter().count()).isEqualTo(1);
+        then(meterRegistry.get(ReservationMetrics.OPERATIONS_METRIC)
+                .tags("operation", "place", "outcome", "rejected").timer().count()).isEqualTo(1);
+        then(meterRegistry.get(ReservationMetrics.OPERATIONS_METRIC)
+                .tags("operation", "place", "outcome", "success").timer().count()).isZero();
+    }
+
+    @Test
+    public void shouldTimeThePlacementAndEachValidationStep() {
+        // given
+        reservationService = createReservationService(createFixedClock("2023-01-01T10:30:00.00Z"));
+        ReservationRequestDTO request = createReservationRequest(LocalDate.of(2023, 1, 10), LocalDate.of(2023, 1, 12));
+        givenRoomAndUserExist();
+
+        // when
+        reservationService.placeReservation(request);
+
+        // then
+        then(meterRegistry.get(ReservationMetrics.OPERATIONS_METRIC)
+                .tags("operation", "place", "outcome", "success").timer().count()).isEqualTo(1);
+        then(meterRegistry.get(ReservationMetrics.VALIDATION_METRIC).timers())
+                .filteredOn(timer -> timer.count() == 1)
+                .extracting(timer -> timer.getId().getTag("step"))
+                .containsExactlyInAnyOrder("start_and_end_date_not_equal", "start_date_not_after_end_date", "duration", "maximum_start_date");
+    }
+
+    @Test
+    public void shouldRecordAPlacementWhoseCommitFailedAsAnError() {
+        // given
+        reservationService = createReservationService(createFixedClock("2023-01-01T10:30:00.00Z"));
+        ReservationRequestDTO request = createReservationRequest(LocalDate.of(2023, 1, 10), LocalDate.of(2023, 1, 12));
+        givenRoomAndUserExist();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            reservationService.placeReservation(request);
+            then(meterRegistry.get(ReservationMetrics.OPERATIONS_METRIC).tag("operation", "place").timers())
+                    .allSatisfy(timer -> then(timer.count()).isZero());
+
+            // when
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // then
+        then(meterRegistry.get(ReservationMetrics.OPERATIONS_METRIC)
+                .tags("operation", "place", "outcome", "error").timer().count()).isEqualTo(1);
+        then(meterRegistry.get(ReservationMetrics.OPERATIONS_METRIC)
+                .tags("operation", "place", "outcome", "success").timer().count()).isZero();
     }
 
     @Test
@@ -139,38 +239,76 @@ class ReservationServiceImplTest {
         // given
         Clock fixedClock = createFixedClock("2023-01-01T10:30:00.00Z");
 
-        reservationService = new ReservationServiceImpl(reservationRepository, roomRepository, userRepository, roomAvailabilityService, fixedClock);
+        reservationService = createReservationService(fixedClock);
 
         var startDate = LocalDate.of(2023, 1, 10);
         var endDate = LocalDate.of(2023, 1, 12);
         ReservationRequestDTO request = createReservationRequest(startDate, endDate);
 
-        var roomAvailabilityResponse = new RoomAvailabilityResponseDTO(true, null);
-        given(roomAvailabilityService.getRoomAvailability(startDate, 1L)).willReturn(roomAvailabilityResponse);
-
-        var room = new Room();
-        room.setId(1L);
-        given(roomRepository.findById(1L)).willReturn(Optional.of(room));
-
-        var user = new User();
-        user.setId(1L);
-        given(userRepository.findById(1L)).willReturn(Optional.of(user));
+        givenRoomAndUserExist();
 
         // when
         ReservationSuccessResponseDTO actual = reservationService.placeReservation(request);
 
         // then
         verify(reservationRepository).save(any(Reservation.class));
+        then(roomOccupancyIndex.isFree(1L, startDate, startDate)).isFalse();
+        then(roomOccupancyIndex.isFree(1L, endDate, endDate)).isFalse();
         then(actual.getUserId()).isEqualTo(1L);
         then(actual.getRoomId()).isEqualTo(1L);
         then(actual.getStartDate()).isEqualTo(startDate);
         then(actual.getEndDate()).isEqualTo(endDate);
     }
 
+    @Test
+    public void shouldPlaceTheValidReservationsOfAPartialSuccessBatch() {
+        // given
+        reservationService = createReservationService(createFixedClock("2023-01-01T10:30:00.00Z"));
+        givenRoomAndUserExistForBatches();
+        var batchRequest = new ReservationBatchRequestDTO(List.of(
+                createReservationRequest(LocalDate.of(2023, 1, 10), LocalDate.of(2023, 1, 12)),
+                createReservationRequest(LocalDate.of(2023, 1, 12), LocalDate.of(2023, 1, 11)),
+                createReservationRequest(LocalDate.of(2023, 1, 14), LocalDate.of(2023, 1, 15))
+        ), false);
+
+        // when
+        var results = reservationService.placeReservations(batchRequest);
+
+        // then
+        then(results).extracting(ReservationBatchResultDTO::isPlaced).containsExactly(true, false, true);
+        then(results.get(1).getErrorMessage()).isEqualTo("The start date cannot be after the end date");
+        then(results.get(2).getReservation().getStartDate()).isEqualTo(LocalDate.of(2023, 1, 14));
+        verify(reservationRepository).saveAll(reservationsCaptor.capture());
+        then(reservationsCaptor.getValue()).hasSize(2);
+        then(roomOccupancyIndex.isFree(1L, LocalDate.of(2023, 1, 15), LocalDate.of(2023, 1, 15))).isFalse();
+    }
+
+    @Test
+    public void shouldRejectTheWholeBatchIfAnyReservationIsRejectedInAllOrNothingMode() {
+        // given
+        reservationService = createReservationService(createFixedClock("2023-01-01T10:30:00.00Z"));
+        givenRoomAndUserExistForBatches();
+        var batchRequest = new ReservationBatchRequestDTO(List.of(
+                createReservationRequest(LocalDate.of(2023, 1, 10), LocalDate.of(2023, 1, 12)),
+                createReservationRequest(LocalDate.of(2023, 1, 12), LocalDate.of(2023, 1, 13))
+        ), true);
+
+        // when
+        Throwable thrown = catchThrowable(() -> reservationService.placeReservations(batchRequest));
+
+        // then
+        then(thrown).isInstanceOf(ReservationException.class)
+                .hasMessage("Reservation at position 1 was rejected: Room is already reserved in the provided period");
+        then(((ReservationException) thrown).getReason()).isEqualTo(ReservationRejectionReasonEnum.ROOM_ALREADY_RESERVED);
+        verify(reservationRepository, never()).saveAll(anyList());
+        then(meterRegistry.get(ReservationMetrics.REJECTIONS_METRIC)
+                .tags("operation", "place_batch", "reason", "room_already_reserved").counter().count()).isEqualTo(1);
+    }
+
     @Test
     public void shouldNotBeAbleToUpdateAReservationIfItDoesNotExist() {
         //given
-        given(reservationRepository.findById(1L)).willReturn(Optional.empty());
+        given(reservationRepository.findWithRoomAndUserById(1L)).willReturn(Optional.empty());
         ReservationUpdateRequestDTO reservationUpdateRequest = createReservationUpdateRequest(1L, null, null);
 
         // when
@@ -185,7 +323,7 @@ class ReservationServiceImplTest {
         // given
         var reservation = new Reservation();
         reservation.setStatus(ReservationStatusEnum.ACTIVE);
-        given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
+        given(reservationRepository.findWithRoomAndUserById(1L)).willReturn(Optional.of(reservation));
 
         var startDate = LocalDate.of(2023, 1, 2);
         var endDate = LocalDate.of(2023, 1, 1);
@@ -203,7 +341,7 @@ class ReservationServiceImplTest {
         // given
         var reservation = new Reservation();
         reservation.setStatus(ReservationStatusEnum.ACTIVE);
-        given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
+        given(reservationRepository.findWithRoomAndUserById(1L)).willReturn(Optional.of(reservation));
 
         var startDate = LocalDate.of(2023, 1, 1);
         var endDate = LocalDate.of(2023, 1, 1);
@@ -221,7 +359,7 @@ class ReservationServiceImplTest {
         // given
         var reservation = new Reservation();
         reservation.setStatus(ReservationStatusEnum.FINISHED);
-        given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
+        given(reservationRepository.findWithRoomAndUserById(1L)).willReturn(Optional.of(reservation));
 
         ReservationUpdateRequestDTO reservationUpdateRequest = createReservationUpdateRequest(1L, null, null);
 
@@ -237,7 +375,7 @@ class ReservationServiceImplTest {
         // given
         var reservation = new Reservation();
         reservation.setStatus(ReservationStatusEnum.ACTIVE);
-        given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
+        given(reservationRepository.findWithRoomAndUserById(1L)).willReturn(Optional.of(reservation));
 
         var startDate = LocalDate.of(2023, 1, 1);
         var endDate = LocalDate.of(2023, 1, 4);
@@ -254,11 +392,11 @@ class ReservationServiceImplTest {
         // given
         Clock fixedClock = createFixedClock("2023-01-01T10:30:00.00Z");
 
-        reservationService = new ReservationServiceImpl(reservationRepository, roomRepository, userRepository, roomAvailabilityService, fixedClock);
+        reservationService = createReservationService(fixedClock);
 
         Reservation reservation = new Reservation();
         reservation.setStatus(ReservationStatusEnum.ACTIVE);
-        given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
+        given(reservationRepository.findWithRoomAndUserById(1L)).willReturn(Optional.of(reservation));
 
         var startDate = LocalDate.of(2023, 2, 1);
         var endDate = LocalDate.of(2023, 2, 2);
@@ -274,28 +412,63 @@ class ReservationServiceImplTest {
     // cannot update a reservation whose start date and end dates clash with another reservation
     @Test
     public void shouldNotBeAbleToUpdateAReservationIfTheRoomIsAlreadyReserved() {
+        // given
+        reservationService = createReservationService(createFixedClock("2023-01-01T10:30:00.00Z"));
 
         var reservation = new Reservation();
         reservation.setStatus(ReservationStatusEnum.ACTIVE);
+        reservation.setStartDate(LocalDate.of(2023, 1, 10));
+        reservation.setEndDate(LocalDate.of(2023, 1, 12));
 
         var room = new Room();
         room.setId(1L);
         reservation.setRoom(room);
 
-        given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
+        given(reservationRepository.findWithRoomAndUserById(1L)).willReturn(Optional.of(reservation));
+        roomOccupancyIndex.occupy(1L, LocalDate.of(2023, 1, 10), LocalDate.of(2023, 1, 12));
+        roomOccupancyIndex.occupy(1L, LocalDate.of(2023, 1, 20), LocalDate.of(2023, 1, 22));
 
-        var startDate = LocalDate.of(2023, 2, 1);
-        var endDate = LocalDate.of(2023, 2, 2);
+        var startDate = LocalDate.of(2023, 1, 19);
+        var endDate = LocalDate.of(2023, 1, 20);
         ReservationUpdateRequestDTO request = createReservationUpdateRequest(1L, startDate, endDate);
 
-        var roomAvailabilityResponse = new RoomAvailabilityResponseDTO(false, null);
-        given(roomAvailabilityService.getRoomAvailability(startDate, 1L)).willReturn(roomAvailabilityResponse);
-
         // when
         Throwable thrown = catchThrowable(() -> reservationService.updateReservation(request));
 
         // then
         then(thrown).isInstanceOf(ReservationException.class).hasMessage("Room is already reserved in the provided period");
+        then(roomOccupancyIndex.isFree(1L, LocalDate.of(2023, 1, 19), LocalDate.of(2023, 1, 19))).isTrue();
+        then(roomOccupancyIndex.isFree(1L, LocalDate.of(2023, 1, 10), LocalDate.of(2023, 1, 10))).isFalse();
+    }
+
+    @Test
+    public void shouldBeAbleToUpdateAReservationToDatesOverlappingItself() {
+        // given
+        reservationService = createReservationService(createFixedClock("2023-01-01T10:30:00.00Z"));
+
+        var room = new Room();
+        room.setId(1L);
+        var user = new User();
+        user.setId(1L);
+
+        var reservation = new Reservation();
+        reservation.setStatus(ReservationStatusEnum.ACTIVE);
+        reservation.setStartDate(LocalDate.of(2023, 1, 10));
+        reservation.setEndDate(LocalDate.of(2023, 1, 12));
+        reservation.setRoom(room);
+        reservation.setUser(user);
+        given(reservationRepository.findWithRoomAndUserById(1L)).willReturn(Optional.of(reservation));
+        roomOccupancyIndex.occupy(1L, LocalDate.of(2023, 1, 10), LocalDate.of(2023, 1, 12));
+
+        ReservationUpdateRequestDTO request = createReservationUpdateRequest(1L, LocalDate.of(2023, 1, 11), LocalDate.of(2023, 1, 13));
+
+        // when
+        reservationService.updateReservation(request);
+
+        // then
+        then(roomOccupancyIndex.isFree(1L, LocalDate.of(2023, 1, 10), LocalDate.of(2023, 1, 10))).isTrue();
+        then(roomOccupancyIndex.isFree(1L, LocalDate.of(2023, 1, 11), LocalDate.of(2023, 1, 11))).isFalse();
+        then(roomOccupancyIndex.isFree(1L, LocalDate.of(2023, 1, 13), LocalDate.of(2023, 1, 13))).isFalse();
     }
 
     // can update a reservation if input is valid.
@@ -303,15 +476,12 @@ class ReservationServiceImplTest {
     public void shouldBeAbleToUpdateAReservationIfInputIsValid() {
         Clock fixedClock = createFixedClock("2023-01-01T10:30:00.00Z");
 
-        reservationService = new ReservationServiceImpl(reservationRepository, roomRepository, userRepository, roomAvailabilityService, fixedClock);
+        reservationService = createReservationService(fixedClock);
 
         var startDate = LocalDate.of(2023, 1, 10);
         var endDate = LocalDate.of(2023, 1, 12);
         ReservationUpdateRequestDTO request = createReservationUpdateRequest(1L, startDate, endDate);
 
-        var roomAvailabilityResponse = new RoomAvailabilityResponseDTO(true, null);
-        given(roomAvailabilityService.getRoomAvailability(startDate, 1L)).willReturn(roomAvailabilityResponse);
-
         var room = new Room();
         room.setId(1L);
         var user = new User();
@@ -319,9 +489,11 @@ class ReservationServiceImplTest {
 
         var oldReservation = new Reservation();
         oldReservation.setStatus(ReservationStatusEnum.ACTIVE);
+        oldReservation.setStartDate(LocalDate.of(2023, 1, 5));
+        oldReservation.setEndDate(LocalDate.of(2023, 1, 6));
         oldReservation.setRoom(room);
         oldReservation.setUser(user);
-        given(reservationRepository.findById(1L)).willReturn(Optional.of(oldReservation));
+        given(reservationRepository.findWithRoomAndUserById(1L)).willReturn(Optional.of(oldReservation));
 
         // when
         ReservationSuccessResponseDTO actual = reservationService.updateReservation(request);
@@ -337,7 +509,7 @@ class ReservationServiceImplTest {
     @Test
     public void shouldNotBeAbleToCancelAReservationIfItDoesNotExist() {
         // given
-        given(reservationRepository.findById(1L)).willReturn(Optional.empty());
+        given(reservationRepository.findWithRoomAndUserById(1L)).willReturn(Optional.empty());
         //when
         Throwable thrown = catchThrowable(() -> reservationService.cancelReservation(1L));
         //then
@@ -349,7 +521,7 @@ class ReservationServiceImplTest {
         // given
         var reservation = new Reservation();
         reservation.setStatus(ReservationStatusEnum.FINISHED);
-        given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
+        given(reservationRepository.findWithRoomAndUserById(1L)).willReturn(Optional.of(reservation));
 
         //when
         Throwable thrown = catchThrowable(() -> reservationService.cancelReservation(1L));
@@ -361,9 +533,21 @@ class ReservationServiceImplTest {
     @Test
     public void shouldBeAbleToCancelAnActiveReservation() {
         //given
+        var room = new Room();
+        room.setId(1L);
+        var user = new User();
+        user.setId(1L);
+
         var reservation = new Reservation();
         reservation.setStatus(ReservationStatusEnum.ACTIVE);
-        given(reservationRepository.findById(1L)).willReturn(Optional.of(reservation));
+        reservation.setRoom(room);
+        reservation.setUser(user);
+        reservation.setStartDate(LocalDate.of(2023, 1, 10));
+        reservation.setEndDate(LocalDate.of(2023, 1, 12));
+        given(reservationRepository.findWithRoomAndUserById(1L)).willReturn(Optional.of(reservation));
+
+        reservationService = createReservationService(createFixedClock("2023-01-01T10:30:00.00Z"));
+        roomOccupancyIndex.occupy(1L, LocalDate.of(2023, 1, 10), LocalDate.of(2023, 1, 12));
 
         //when
         reservationService.cancelReservation(1L);
@@ -372,6 +556,95 @@ class ReservationServiceImplTest {
         verify(reservationRepository).save(reservationCaptor.capture());
         Reservation captured = reservationCaptor.getValue();
         then(captured.getStatus()).isEqualTo(ReservationStatusEnum.CANCELLED);
+        then(roomOccupancyIndex.isFree(1L, LocalDate.of(2023, 1, 11), LocalDate.of(2023, 1, 11))).isTrue();
+        verify(reservationEventRepository).save(eventCaptor.capture());
+        then(eventCaptor.getValue().getType()).isEqualTo(ReservationEventTypeEnum.CANCELLED);
+        then(eventCaptor.getValue().getCreatedAt()).isEqualTo(LocalDateTime.of(2023, 1, 1, 7, 30));
+    }
+
+    @Test
+    public void shouldRetryACancellationThatConflictsWithAConcurrentChange() {
+        //given
+        givenActiveReservationIsLoadedByEachAttempt();
+        given(reservationRepository.save(any(Reservation.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Reservation.class, 1L))
+                .willAnswer(invocation -> invocation.getArgument(0));
+
+        reservationService = createReservationService(createFixedClock("2023-01-01T10:30:00.00Z"));
+
+        //when
+        reservationService.cancelReservation(1L);
+
+        //then
+        verify(reservationRepository, times(2)).save(any(Reservation.class));
+        then(meterRegistry.get(ConflictRetryExecutor.CONFLICTS_METRIC).tag("operation", "cancel").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReportAConflictOnceTheRetriesAreExhausted() {
+        //given
+        givenActiveReservationIsLoadedByEachAttempt();
+        given(reservationRepository.save(any(Reservation.class))).willThrow(new ObjectOptimisticLockingFailureException(Reservation.class, 1L));
+
+        reservationService = createReservationService(createFixedClock("2023-01-01T10:30:00.00Z"));
+
+        //when
+        Throwable thrown = catchThrowable(() -> reservationService.cancelReservation(1L));
+
+        //then
+        then(thrown).isInstanceOf(ReservationConflictException.class).hasMessage("The reservation was modified concurrently, please try again");
+        verify(reservationRepository, times(3)).save(any(Reservation.class));
+        then(meterRegistry.get(ConflictRetryExecutor.EXHAUSTED_METRIC).tag("operation", "cancel").counter().count()).isEqualTo(1);
+        then(meterRegistry.get(ReservationMetrics.REJECTIONS_METRIC)
+                .tags("operation", "cancel", "reason", "concurrent_modification").counter().count()).isEqualTo(1);
+    }
+
+    private ReservationServiceImpl createReservationService(Clock clock) {
+        roomOccupancyIndex = new RoomOccupancyIndex(reservationRepository, roomRepository, clock);
+        meterRegistry = new SimpleMeterRegistry();
+        var roomBookingCoordinator = new RoomBookingCoordinator(roomOccupancyIndex, new AvailabilityChangePublisher(Runnable::run, meterRegistry, 16),
+                new OccupancyStatistics(reservationRepository, reservationArchiveRepository, 100, true));
+        var reservationMetrics = new ReservationMetrics(meterRegistry, true);
+        var conflictRetryExecutor = new ConflictRetryExecutor(transactionManager, meterRegistry, 3, Duration.ZERO, 2, Duration.ZERO);
+        return new ReservationServiceImpl(reservationRepository, roomRepository, userRepository, reservationEventRepository, roomBookingCoordinator,
+                conflictRetryExecutor, reservationMetrics, clock);
+    }
+
+    private void givenRoomAndUserExist() {
+        var room = new Room();
+        room.setId(1L);
+        given(roomRepository.findById(1L)).willReturn(Optional.of(room));
+
+        var user = new User();
+        user.setId(1L);
+        given(userRepository.findById(1L)).willReturn(Optional.of(user));
+    }
+
+    private void givenActiveReservationIsLoadedByEachAttempt() {
+        var room = new Room();
+        room.setId(1L);
+        var user = new User();
+        user.setId(1L);
+        // every attempt runs in a new transaction and loads the reservation again
+        given(reservationRepository.findWithRoomAndUserById(1L)).willAnswer(invocation -> {
+            var reservation = new Reservation();
+            reservation.setStatus(ReservationStatusEnum.ACTIVE);
+            reservation.setRoom(room);
+            reservation.setUser(user);
+            reservation.setStartDate(LocalDate.of(2023, 1, 10));
+            reservation.setEndDate(LocalDate.of(2023, 1, 12));
+            return Optional.of(reservation);
+        });
+    }
+
+    private void givenRoomAndUserExistForBatches() {
+        var room = new Room();
+        room.setId(1L);
+        given(roomRepository.findAllById(List.of(1L))).willReturn(List.of(room));
+
+        var user = new User();
+        user.setId(1L);
+        given(userRepository.findAllById(List.of(1L))).willReturn(List.of(user));
     }
 
     private static ReservationRequestDTO createReservationRequest(LocalDate startDate, LocalDate endDate) {
@@ -0,0 +1,135 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.controllers.request.ReservationBatchRequestDTO;
+import com.gustavo.cancunbooking.controllers.request.ReservationRequestDTO;
+import com.gustavo.cancunbooking.controllers.request.ReservationUpdateRequestDTO;
+import com.gustavo.cancunbooking.controllers.response.ReservationBatchResultDTO;
+import com.gustavo.cancunbooking.model.Room;
+import com.gustavo.cancunbooking.model.User;
+import com.gustavo.cancunbooking.repositories.RoomRepository;
+import com.gustavo.cancunbooking.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReservationServiceSqlCountTest {
+
+    private static final AtomicInteger ROOM_NUMBERS = new AtomicInteger(1_000);
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private RoomRepository roomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Long roomId;
+
+    private Long userId;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        var room = new Room();
+        room.setNumber(ROOM_NUMBERS.incrementAndGet());
+        roomId = roomRepository.save(room).getId();
+
+        var user = new User();
+        user.setName("User " + room.getNumber());
+        user.setEmail("user" + room.getNumber() + "@email.com");
+        userId = userRepository.save(user).getId();
+
+        // the first changes may have to fetch new blocks of ids from the sequences
+        Long warmUpReservationId = reservationService.placeReservation(
+                new ReservationRequestDTO(userId, roomId, LocalDate.now().plusDays(4), LocalDate.now().plusDays(5))
+        ).getReservationId();
+        reservationService.cancelReservation(warmUpReservationId);
+    }
+
+    @Test
+    public void shouldPlaceAReservationWithAnInsertAndAnOutboxInsert() {
+        // given
+        var request = new ReservationRequestDTO(userId, roomId, LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+        statistics.clear();
+
+        // when
+        reservationService.placeReservation(request);
+
+        // then
+        then(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldPlaceABatchOfReservationsWithBatchedInserts() {
+        // given
+        List<ReservationRequestDTO> requests = new ArrayList<>();
+        for (int day = 1; day < ReservationServiceImpl.MAXIMUM_FUTURE_DAYS_ALLOWED; day += 3) {
+            requests.add(new ReservationRequestDTO(userId, roomId, LocalDate.now().plusDays(day), LocalDate.now().plusDays(day + 1)));
+        }
+        statistics.clear();
+
+        // when
+        var results = reservationService.placeReservations(new ReservationBatchRequestDTO(requests, true));
+
+        // then
+        then(results).hasSize(requests.size()).allMatch(ReservationBatchResultDTO::isPlaced);
+        // one select for the rooms, one for the users, at most two for each sequence and a single batched insert per table
+        then(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(8);
+        then(statistics.getEntityInsertCount()).isEqualTo(2L * requests.size());
+    }
+
+    @Test
+    public void shouldUpdateAReservationWithOneSelectOneUpdateAndAnOutboxInsert() {
+        // given
+        Long reservationId = reservationService.placeReservation(
+                new ReservationRequestDTO(userId, roomId, LocalDate.now().plusDays(1), LocalDate.now().plusDays(2))
+        ).getReservationId();
+        var request = new ReservationUpdateRequestDTO(reservationId, LocalDate.now().plusDays(4), LocalDate.now().plusDays(5));
+        statistics.clear();
+
+        // when
+        var response = reservationService.updateReservation(request);
+
+        // then
+        then(statistics.getPrepareStatementCount()).isEqualTo(3);
+        then(response.getRoomId()).isEqualTo(roomId);
+        then(response.getUserId()).isEqualTo(userId);
+    }
+
+    @Test
+    public void shouldCancelAReservationWithOneSelectOneUpdateAndAnOutboxInsert() {
+        // given
+        Long reservationId = reservationService.placeReservation(
+                new ReservationRequestDTO(userId, roomId, LocalDate.now().plusDays(1), LocalDate.now().plusDays(2))
+        ).getReservationId();
+        statistics.clear();
+
+        // when
+        reservationService.cancelReservation(reservationId);
+
+        // then
+        then(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+}
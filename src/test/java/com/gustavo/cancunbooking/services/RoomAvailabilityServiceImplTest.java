@@ -1,26 +1,39 @@
 package com.gustavo.cancunbooking.services;
 
-import com.gustavo.cancunbooking.model.Reservation;
-import com.gustavo.cancunbooking.model.ReservationStatusEnum;
+import com.gustavo.cancunbooking.controllers.response.RoomAvailabilitySearchResultDTO;
+import com.gustavo.cancunbooking.exceptions.ReservationException;
 import com.gustavo.cancunbooking.repositories.ReservationRepository;
 import com.gustavo.cancunbooking.repositories.RoomRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.util.Optional;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @ExtendWith(MockitoExtension.class)
 class RoomAvailabilityServiceImplTest {
 
     RoomAvailabilityServiceImpl roomAvailabilityService;
 
+    RoomOccupancyIndex roomOccupancyIndex;
+
+    SimpleMeterRegistry meterRegistry;
+
+    Clock fixedClock;
+
     @Mock
     private ReservationRepository reservationRepository;
 
@@ -29,67 +42,262 @@ class RoomAvailabilityServiceImplTest {
 
     @BeforeEach
     public void setUp() {
-        roomAvailabilityService = new RoomAvailabilityServiceImpl(reservationRepository, roomRepository);
+        fixedClock = Clock.fixed(Instant.parse("2023-01-01T10:30:00.00Z"), ZoneOffset.UTC);
+        roomOccupancyIndex = new RoomOccupancyIndex(reservationRepository, roomRepository, fixedClock);
+        meterRegistry = new SimpleMeterRegistry();
+        roomAvailabilityService = new RoomAvailabilityServiceImpl(roomOccupancyIndex, reservationRepository, roomRepository, Runnable::run, fixedClock, meterRegistry);
     }
 
     @Test
     public void roomShouldBeAvailableIfStartDateIsAfterCurrentReservationEndDate() {
         // given
+        long roomId = 1L;
         LocalDate reservationEndDate = LocalDate.of(2023, 1, 10);
-        Reservation reservation = createReservationMockResponse(reservationEndDate);
+        roomOccupancyIndex.occupy(roomId, LocalDate.of(2023, 1, 8), reservationEndDate);
 
-        long roomId = 1L;
-        given(reservationRepository.findByRoomIdAndStatus(roomId, ReservationStatusEnum.ACTIVE))
-                .willReturn(Optional.of(reservation));
-        
         // when
         LocalDate dateToCheck = LocalDate.of(2023, 1, 15);
-        var responseDTO = roomAvailabilityService.getRoomAvailability(dateToCheck, roomId);
+        var responseDTO = roomAvailabilityService.getRoomAvailability(dateToCheck, dateToCheck, roomId);
 
         // then
         then(responseDTO.isAvailable()).isTrue();
-        then(responseDTO.getClosestAvailableStartDate()).isEqualTo(reservationEndDate.plusDays(1));
+        then(responseDTO.getClosestAvailableStartDate()).isEqualTo(dateToCheck);
+        verifyNoInteractions(reservationRepository, roomRepository);
     }
 
     @Test
     public void roomShouldNotBeAvailableIfStartDateIsBeforeCurrentReservationEndDate() {
         // given
-        LocalDate reservationEndDate = LocalDate.of(2023, 1, 10);
-        Reservation reservation = createReservationMockResponse(reservationEndDate);
-
         long roomId = 1L;
-        given(reservationRepository.findByRoomIdAndStatus(roomId, ReservationStatusEnum.ACTIVE))
-                .willReturn(Optional.of(reservation));
+        LocalDate reservationEndDate = LocalDate.of(2023, 1, 10);
+        roomOccupancyIndex.occupy(roomId, LocalDate.of(2023, 1, 8), reservationEndDate);
 
         // when
         LocalDate dateToCheck = LocalDate.of(2023, 1, 9);
-        var responseDTO = roomAvailabilityService.getRoomAvailability(dateToCheck, roomId);
+        var responseDTO = roomAvailabilityService.getRoomAvailability(dateToCheck, dateToCheck, roomId);
 
         // then
         then(responseDTO.isAvailable()).isFalse();
         then(responseDTO.getClosestAvailableStartDate()).isEqualTo(reservationEndDate.plusDays(1));
+        verifyNoInteractions(reservationRepository, roomRepository);
     }
 
     @Test
     public void roomShouldBeAvailableIfNoReservationIsActive() {
         // given
         long roomId = 1L;
-        given(reservationRepository.findByRoomIdAndStatus(roomId, ReservationStatusEnum.ACTIVE))
-                .willReturn(Optional.empty());
         given(roomRepository.existsById(roomId)).willReturn(true);
 
         // when
         LocalDate dateToCheck = LocalDate.of(2023, 1, 9);
-        var responseDTO = roomAvailabilityService.getRoomAvailability(dateToCheck, roomId);
+        var responseDTO = roomAvailabilityService.getRoomAvailability(dateToCheck, dateToCheck, roomId);
 
         // then
         then(responseDTO.isAvailable()).isTrue();
-        then(responseDTO.getClosestAvailableStartDate()).isEqualTo(LocalDate.now().plusDays(1));
+        then(responseDTO.getClosestAvailableStartDate()).isEqualTo(dateToCheck);
+    }
+
+    @Test
+    public void roomShouldBeAvailableAgainAfterReservationIsReleased() {
+        // given
+        long roomId = 1L;
+        roomOccupancyIndex.occupy(roomId, LocalDate.of(2023, 1, 8), LocalDate.of(2023, 1, 10));
+        roomOccupancyIndex.release(roomId, LocalDate.of(2023, 1, 8), LocalDate.of(2023, 1, 10));
+
+        // when
+        var responseDTO = roomAvailabilityService.getRoomAvailability(LocalDate.of(2023, 1, 9), LocalDate.of(2023, 1, 9), roomId);
+
+        // then
+        then(responseDTO.isAvailable()).isTrue();
+    }
+
+    @Test
+    public void roomShouldNotBeAvailableIfAnyDayOfThePeriodIsReserved() {
+        // given
+        long roomId = 1L;
+        roomOccupancyIndex.occupy(roomId, LocalDate.of(2023, 1, 8), LocalDate.of(2023, 1, 10));
+        roomOccupancyIndex.occupy(roomId, LocalDate.of(2023, 1, 13), LocalDate.of(2023, 1, 14));
+
+        // when
+        var responseDTO = roomAvailabilityService.getRoomAvailability(LocalDate.of(2023, 1, 6), LocalDate.of(2023, 1, 8), roomId);
+
+        // then
+        then(responseDTO.isAvailable()).isFalse();
+        then(responseDTO.getClosestAvailableStartDate()).isEqualTo(LocalDate.of(2023, 1, 15));
+    }
+
+    @Test
+    public void shouldQueryTheDatabaseForPeriodsOutsideTheIndexWindow() {
+        // given
+        long roomId = 1L;
+        roomOccupancyIndex.registerRoom(roomId);
+        LocalDate startDate = LocalDate.of(2023, 6, 1);
+        LocalDate endDate = LocalDate.of(2023, 6, 3);
+        given(reservationRepository.existsActiveReservationOverlapping(roomId, startDate, endDate)).willReturn(true);
+
+        // when
+        var responseDTO = roomAvailabilityService.getRoomAvailability(startDate, endDate, roomId);
+
+        // then
+        then(responseDTO.isAvailable()).isFalse();
+        then(meterRegistry.get(RoomAvailabilityServiceImpl.LOOKUPS_METRIC).tag("result", "miss").counter().count()).isEqualTo(1);
+        then(meterRegistry.get(RoomAvailabilityServiceImpl.LOOKUPS_METRIC).tag("result", "hit").counter().count()).isZero();
+        then(meterRegistry.get(RoomAvailabilityServiceImpl.DATABASE_METRIC).tag("query", "room").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldSearchAvailabilityOfAllRoomsWithoutQueryingReservations() {
+        // given
+        roomOccupancyIndex.registerRoom(1L);
+        roomOccupancyIndex.registerRoom(2L);
+        roomOccupancyIndex.registerRoom(3L);
+        roomOccupancyIndex.occupy(2L, LocalDate.of(2023, 1, 8), LocalDate.of(2023, 1, 10));
+        given(roomRepository.findAllIds()).willReturn(List.of(1L, 2L, 3L));
+
+        // when
+        var results = roomAvailabilityService.searchAvailability(LocalDate.of(2023, 1, 9), LocalDate.of(2023, 1, 10));
+
+        // then
+        then(results).extracting(RoomAvailabilitySearchResultDTO::getRoomId).containsExactly(1L, 2L, 3L);
+        then(results).extracting(RoomAvailabilitySearchResultDTO::isAvailable).containsExactly(true, false, true);
+        then(results.get(1).getClosestAvailableStartDate()).isEqualTo(LocalDate.of(2023, 1, 11));
+        verifyNoInteractions(reservationRepository);
+    }
+
+    @Test
+    public void shouldSearchTheSameRoomsInsideAndOutsideTheIndexWindow() {
+        // given
+        roomOccupancyIndex.registerRoom(1L);
+        roomOccupancyIndex.registerRoom(2L);
+        given(roomRepository.findAllIds()).willReturn(List.of(1L, 3L));
+
+        // when
+        var insideWindow = roomAvailabilityService.searchAvailability(LocalDate.of(2023, 1, 9), LocalDate.of(2023, 1, 10));
+        var outsideWindow = roomAvailabilityService.searchAvailability(LocalDate.of(2023, 6, 1), LocalDate.of(2023, 6, 3));
+
+        // then
+        then(insideWindow).extracting(RoomAvailabilitySearchResultDTO::getRoomId).containsExactly(1L, 3L);
+        then(outsideWindow).extracting(RoomAvailabilitySearchResultDTO::getRoomId).containsExactly(1L, 3L);
+        then(roomOccupancyIndex.containsRoom(3L)).isTrue();
+    }
+
+    @Test
+    public void shouldSearchAvailabilityOutsideTheIndexWindowWithASingleQuery() {
+        // given
+        LocalDate startDate = LocalDate.of(2023, 6, 1);
+        LocalDate endDate = LocalDate.of(2023, 6, 3);
+        given(roomRepository.findAllIds()).willReturn(List.of(2L, 1L));
+        given(reservationRepository.findRoomIdsWithActiveReservationOverlapping(startDate, endDate)).willReturn(List.of(2L));
+
+        // when
+        var results = roomAvailabilityService.searchAvailability(startDate, endDate);
+
+        // then
+        then(results).extracting(RoomAvailabilitySearchResultDTO::getRoomId).containsExactly(1L, 2L);
+        then(results).extracting(RoomAvailabilitySearchResultDTO::isAvailable).containsExactly(true, false);
+    }
+
+    @Test
+    public void shouldFindTheNextAvailableStayStartingTomorrowWhenNoDateIsGiven() {
+        // given
+        long roomId = 1L;
+        roomOccupancyIndex.occupy(roomId, LocalDate.of(2023, 1, 2), LocalDate.of(2023, 1, 3));
+        roomOccupancyIndex.occupy(roomId, LocalDate.of(2023, 1, 6), LocalDate.of(2023, 1, 6));
+
+        // when
+        var twoDaysStay = roomAvailabilityService.findNextAvailableStay(roomId, null, 2);
+        var threeDaysStay = roomAvailabilityService.findNextAvailableStay(roomId, LocalDate.of(2023, 1, 3), 3);
+
+        // then
+        then(twoDaysStay.getStartDate()).isEqualTo(LocalDate.of(2023, 1, 4));
+        then(twoDaysStay.getEndDate()).isEqualTo(LocalDate.of(2023, 1, 5));
+        then(threeDaysStay.getStartDate()).isEqualTo(LocalDate.of(2023, 1, 7));
+        then(threeDaysStay.getEndDate()).isEqualTo(LocalDate.of(2023, 1, 9));
+        verifyNoInteractions(reservationRepository, roomRepository);
+        then(meterRegistry.get(RoomAvailabilityServiceImpl.NEXT_STAY_METRIC).counter().count()).isEqualTo(2);
+        then(meterRegistry.get(RoomAvailabilityServiceImpl.LOOKUPS_METRIC).tag("result", "hit").counter().count()).isZero();
+    }
+
+    @Test
+    public void shouldNotFindTheNextAvailableStayFromADateAfterTheBookingLimit() {
+        // given
+        roomOccupancyIndex.registerRoom(1L);
+
+        // when
+        Throwable thrown = catchThrowable(() -> roomAvailabilityService.findNextAvailableStay(1L, LocalDate.of(2023, 3, 10), 2));
+
+        // then
+        then(thrown).isInstanceOf(ReservationException.class).hasMessage("From date cannot be more than 30 days into the future");
+    }
+
+    @Test
+    public void shouldCheckAvailabilityAsynchronouslyWithoutLeavingTheCallingThreadWhenTheIndexCoversThePeriod() {
+        // given
+        long roomId = 1L;
+        roomOccupancyIndex.occupy(roomId, LocalDate.of(2023, 1, 8), LocalDate.of(2023, 1, 10));
+        List<Runnable> offloadedTasks = new ArrayList<>();
+        roomAvailabilityService = new RoomAvailabilityServiceImpl(roomOccupancyIndex, reservationRepository, roomRepository, offloadedTasks::add, fixedClock, meterRegistry);
+
+        // when
+        var future = roomAvailabilityService.getRoomAvailabilityAsync(LocalDate.of(2023, 1, 9), LocalDate.of(2023, 1, 9), roomId);
+
+        // then
+        then(future).isCompleted();
+        then(future.join().isAvailable()).isFalse();
+        then(offloadedTasks).isEmpty();
+        verifyNoInteractions(reservationRepository, roomRepository);
     }
 
-    private static Reservation createReservationMockResponse(LocalDate reservationEndDate) {
-        Reservation reservation = new Reservation();
-        reservation.setEndDate(reservationEndDate);
-        return reservation;
+    @Test
+    public void shouldCheckAvailabilityOutsideTheIndexWindowOnTheAvailabilityExecutor() {
+        // given
+        long roomId = 1L;
+        roomOccupancyIndex.registerRoom(roomId);
+        LocalDate startDate = LocalDate.of(2023, 6, 1);
+        LocalDate endDate = LocalDate.of(2023, 6, 3);
+        given(reservationRepository.existsActiveReservationOverlapping(roomId, startDate, endDate)).willReturn(false);
+        List<Runnable> offloadedTasks = new ArrayList<>();
+        roomAvailabilityService = new RoomAvailabilityServiceImpl(roomOccupancyIndex, reservationRepository, roomRepository, offloadedTasks::add, fixedClock, meterRegistry);
+
+        // when
+        var future = roomAvailabilityService.getRoomAvailabilityAsync(startDate, endDate, roomId);
+        then(future).isNotDone();
+        offloadedTasks.forEach(Runnable::run);
+
+        // then
+        then(offloadedTasks).hasSize(1);
+        then(future.join().isAvailable()).isTrue();
+    }
+
+    @Test
+    public void shouldFailTheAsynchronousCheckOfAnInvalidPeriod() {
+        // when
+        var future = roomAvailabilityService.getRoomAvailabilityAsync(LocalDate.of(2023, 1, 9), LocalDate.of(2023, 1, 8), 1L);
+
+        // then
+        then(future).isCompletedExceptionally();
+        then(catchThrowable(future::join)).hasCauseInstanceOf(ReservationException.class);
+    }
+
+    @Test
+    public void shouldNotCheckAvailabilityIfStartDateIsAfterEndDate() {
+        // when
+        Throwable thrown = catchThrowable(() -> roomAvailabilityService.getRoomAvailability(LocalDate.of(2023, 1, 9), LocalDate.of(2023, 1, 8), 1L));
+
+        // then
+        then(thrown).isInstanceOf(ReservationException.class).hasMessage("The start date cannot be after the end date");
+    }
+
+    @Test
+    public void shouldNotCheckAvailabilityOfARoomThatDoesNotExist() {
+        // given
+        long roomId = 2L;
+        given(roomRepository.existsById(roomId)).willReturn(false);
+
+        // when
+        Throwable thrown = catchThrowable(() -> roomAvailabilityService.getRoomAvailability(LocalDate.of(2023, 1, 9), LocalDate.of(2023, 1, 9), roomId));
+
+        // then
+        then(thrown).isInstanceOf(ReservationException.class).hasMessage("No room found with the provided id");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,282 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.controllers.response.RoomAvailabilityChangeDTO;
+import com.gustavo.cancunbooking.exceptions.ReservationException;
+import com.gustavo.cancunbooking.repositories.ReservationArchiveRepository;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.RoomRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@ExtendWith(MockitoExtension.class)
+class RoomBookingCoordinatorTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2023, 1, 1);
+
+    RoomOccupancyIndex roomOccupancyIndex;
+
+    RoomBookingCoordinator roomBookingCoordinator;
+
+    AvailabilityChangePublisher availabilityChangePublisher;
+
+    OccupancyStatistics occupancyStatistics;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private ReservationArchiveRepository reservationArchiveRepository;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @BeforeEach
+    public void setUp() {
+        Clock fixedClock = Clock.fixed(Instant.parse("2023-01-01T10:30:00.00Z"), ZoneOffset.UTC);
+        roomOccupancyIndex = new RoomOccupancyIndex(reservationRepository, roomRepository, fixedClock);
+        availabilityChangePublisher = new AvailabilityChangePublisher(Runnable::run, new SimpleMeterRegistry(), 16);
+        occupancyStatistics = new OccupancyStatistics(reservationRepository, reservationArchiveRepository, 100, true);
+        roomBookingCoordinator = new RoomBookingCoordinator(roomOccupancyIndex, availabilityChangePublisher, occupancyStatistics);
+    }
+
+    @Test
+    public void shouldNotClaimARoomThatIsAlreadyReserved() {
+        // given
+        roomBookingCoordinator.claim(1L, TODAY.plusDays(5), TODAY.plusDays(7));
+
+        // when
+        Throwable thrown = catchThrowable(() -> roomBookingCoordinator.claim(1L, TODAY.plusDays(7), TODAY.plusDays(8)));
+
+        // then
+        then(thrown).isInstanceOf(ReservationException.class).hasMessage("Room is already reserved in the provided period");
+        then(roomOccupancyIndex.isFree(1L, TODAY.plusDays(8), TODAY.plusDays(8))).isTrue();
+    }
+
+    @Test
+    public void shouldPublishChangesOnlyAfterTheTransactionCommits() {
+        List<RoomAvailabilityChangeDTO> publishedChanges = new ArrayList<>();
+        availabilityChangePublisher.subscribe(Set.of(1L), publishedChanges::add);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // given
+            roomBookingCoordinator.claim(1L, TODAY.plusDays(5), TODAY.plusDays(7));
+            roomBookingCoordinator.reclaim(1L, TODAY.plusDays(10), TODAY.plusDays(11), TODAY.plusDays(11), TODAY.plusDays(12));
+            then(publishedChanges).isEmpty();
+
+            // when
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+            // then
+            then(publishedChanges).extracting(RoomAvailabilityChangeDTO::getStartDate, RoomAvailabilityChangeDTO::isAvailable)
+                    .containsExactly(
+                            tuple(TODAY.plusDays(5), false),
+                            tuple(TODAY.plusDays(10), true),
+                            tuple(TODAY.plusDays(12), false));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void shouldPublishOnlyTheDaysAnUpdateFreesOrTakes() {
+        // given
+        List<RoomAvailabilityChangeDTO> publishedChanges = new ArrayList<>();
+        availabilityChangePublisher.subscribe(Set.of(1L), publishedChanges::add);
+        roomBookingCoordinator.claim(1L, TODAY.plusDays(10), TODAY.plusDays(15));
+
+        // when
+        roomBookingCoordinator.reclaim(1L, TODAY.plusDays(10), TODAY.plusDays(15), TODAY.plusDays(12), TODAY.plusDays(13));
+        roomBookingCoordinator.reclaim(1L, TODAY.plusDays(12), TODAY.plusDays(13), TODAY.plusDays(11), TODAY.plusDays(14));
+
+        // then
+        then(publishedChanges).extracting(RoomAvailabilityChangeDTO::getStartDate, RoomAvailabilityChangeDTO::getEndDate,
+                        RoomAvailabilityChangeDTO::isAvailable)
+                .containsExactly(
+                        tuple(TODAY.plusDays(10), TODAY.plusDays(15), false),
+                        tuple(TODAY.plusDays(10), TODAY.plusDays(11), true),
+                        tuple(TODAY.plusDays(14), TODAY.plusDays(15), true),
+                        tuple(TODAY.plusDays(11), TODAY.plusDays(11), false),
+                        tuple(TODAY.plusDays(14), TODAY.plusDays(14), false));
+    }
+
+    @Test
+    public void shouldNotPublishChangesOfARolledBackTransaction() {
+        List<RoomAvailabilityChangeDTO> publishedChanges = new ArrayList<>();
+        availabilityChangePublisher.subscribe(Set.of(1L), publishedChanges::add);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // given
+            roomBookingCoordinator.claim(1L, TODAY.plusDays(5), TODAY.plusDays(7));
+
+            // when
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+            // then
+            then(publishedChanges).isEmpty();
+            then(roomOccupancyIndex.isFree(1L, TODAY.plusDays(5), TODAY.plusDays(5))).isTrue();
+            then(occupancyStatistics.getMonth(YearMonth.from(TODAY)).occupiedDaysByRoom()).isEmpty();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void shouldCountCommittedChangesInTheOccupancyStatistics() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // given
+            roomBookingCoordinator.claim(1L, TODAY.plusDays(5), TODAY.plusDays(7));
+            roomBookingCoordinator.claim(2L, TODAY.plusDays(6), TODAY.plusDays(6));
+            roomBookingCoordinator.release(2L, TODAY.plusDays(20), TODAY.plusDays(20));
+
+            // when
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+            // then
+            var month = occupancyStatistics.getMonth(YearMonth.from(TODAY));
+            then(month.occupiedRoomsByDay()[5]).isEqualTo(1);
+            then(month.occupiedRoomsByDay()[6]).isEqualTo(2);
+            then(month.occupiedDaysByRoom()).containsEntry(1L, 3).doesNotContainKey(2L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void shouldNeverDoubleBookARoomUnderConcurrentClaims() throws Exception {
+        // given
+        int rooms = 4;
+        int threads = 8;
+        int days = ReservationServiceImpl.MAXIMUM_FUTURE_DAYS_ALLOWED + ReservationServiceImpl.MAXIMUM_RESERVATION_DAS_ALLOWED;
+        var holdersPerRoomDay = new AtomicIntegerArray(rooms * days);
+        var doubleBookings = new AtomicLong();
+        var successfulClaims = new AtomicLong();
+
+        // when
+        runConcurrently(threads, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20_000; i++) {
+                int room = random.nextInt(rooms);
+                int firstDay = 1 + random.nextInt(days - ReservationServiceImpl.MAXIMUM_RESERVATION_DAS_ALLOWED);
+                int lastDay = firstDay + random.nextInt(ReservationServiceImpl.MAXIMUM_RESERVATION_DAS_ALLOWED);
+                try {
+                    roomBookingCoordinator.claim((long) room, TODAY.plusDays(firstDay), TODAY.plusDays(lastDay));
+                } catch (ReservationException e) {
+                    continue;
+                }
+
+                successfulClaims.incrementAndGet();
+                for (int day = firstDay; day <= lastDay; day++) {
+                    if (holdersPerRoomDay.incrementAndGet(room * days + day) > 1) {
+                        doubleBookings.incrementAndGet();
+                    }
+                }
+                for (int day = firstDay; day <= lastDay; day++) {
+                    holdersPerRoomDay.decrementAndGet(room * days + day);
+                }
+                roomBookingCoordinator.release((long) room, TODAY.plusDays(firstDay), TODAY.plusDays(lastDay));
+            }
+        });
+
+        // then
+        then(successfulClaims.get()).isPositive();
+        then(doubleBookings.get()).isZero();
+    }
+
+    // the statistics and the publisher are wired in as in production, with a subscriber following each room
+    @Test
+    public void shouldScaleWhenBookingDifferentRooms() throws Exception {
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), 4);
+        assumeTrue(threads >= 2, "needs at least two cores");
+        // given
+        var publishedChanges = new LongAdder();
+        for (long room = 0; room < threads; room++) {
+            availabilityChangePublisher.subscribe(Set.of(room), change -> publishedChanges.increment());
+        }
+        claimsPerSecond(threads);
+
+        // when
+        double singleRoomRate = claimsPerSecond(1);
+        double parallelRate = claimsPerSecond(threads);
+
+        // then
+        // rooms share no state, so booking one room per thread gets at least half of the ideal speedup
+        then(parallelRate)
+                .as("%,.0f claims/s on %d rooms against %,.0f claims/s on one", parallelRate, threads, singleRoomRate)
+                .isGreaterThan(singleRoomRate * threads / 2);
+        then(publishedChanges.sum()).isPositive();
+        then(occupancyStatistics.getMonth(YearMonth.from(TODAY)).occupiedRoomsByDay()).containsOnly(0);
+    }
+
+    private double claimsPerSecond(int threads) throws Exception {
+        int claimsPerThread = 50_000;
+        long startNanos = System.nanoTime();
+        runConcurrently(threads, room -> {
+            for (int i = 0; i < claimsPerThread; i++) {
+                int firstDay = 1 + (i % ReservationServiceImpl.MAXIMUM_FUTURE_DAYS_ALLOWED);
+                roomBookingCoordinator.claim((long) room, TODAY.plusDays(firstDay), TODAY.plusDays(firstDay + 2));
+                roomBookingCoordinator.release((long) room, TODAY.plusDays(firstDay), TODAY.plusDays(firstDay + 2));
+            }
+        });
+        return (double) threads * claimsPerThread * 1e9 / (System.nanoTime() - startNanos);
+    }
+
+    private static void runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            var start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int threadNumber = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(threadNumber);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int threadNumber);
+    }
+}
@@ -0,0 +1,223 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.RoomRepository;
+import com.gustavo.cancunbooking.repositories.projections.ReservationPeriod;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class RoomOccupancyIndexTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Test
+    public void shouldLoadRoomsAndActiveReservationsAtStartup() {
+        // given
+        var index = new RoomOccupancyIndex(reservationRepository, roomRepository, fixedClock("2023-01-01T10:30:00.00Z"));
+        given(roomRepository.findAllIds()).willReturn(List.of(1L, 2L));
+        given(reservationRepository.findActiveReservationPeriodsEndingAtDateOrGreater(LocalDate.of(2023, 1, 1)))
+                .willReturn(List.of(new ReservationPeriod(1L, LocalDate.of(2023, 1, 5), LocalDate.of(2023, 1, 7))));
+
+        // when
+        index.load();
+
+        // then
+        then(index.containsRoom(1L)).isTrue();
+        then(index.containsRoom(2L)).isTrue();
+        then(index.containsRoom(3L)).isFalse();
+        then(index.isFree(1L, LocalDate.of(2023, 1, 4), LocalDate.of(2023, 1, 4))).isTrue();
+        then(index.isFree(1L, LocalDate.of(2023, 1, 5), LocalDate.of(2023, 1, 5))).isFalse();
+        then(index.isFree(1L, LocalDate.of(2023, 1, 7), LocalDate.of(2023, 1, 7))).isFalse();
+        then(index.isFree(1L, LocalDate.of(2023, 1, 8), LocalDate.of(2023, 1, 8))).isTrue();
+        then(index.isFree(2L, LocalDate.of(2023, 1, 6), LocalDate.of(2023, 1, 6))).isTrue();
+    }
+
+    @Test
+    public void shouldFindClosestFreeDayAcrossConsecutiveReservations() {
+        // given
+        var index = new RoomOccupancyIndex(reservationRepository, roomRepository, fixedClock("2023-01-01T10:30:00.00Z"));
+        index.occupy(1L, LocalDate.of(2023, 1, 5), LocalDate.of(2023, 1, 7));
+        index.occupy(1L, LocalDate.of(2023, 1, 8), LocalDate.of(2023, 1, 10));
+
+        // when
+        LocalDate closestFreeDay = index.findClosestFreeStart(1L, LocalDate.of(2023, 1, 6), 1);
+
+        // then
+        then(closestFreeDay).isEqualTo(LocalDate.of(2023, 1, 11));
+    }
+
+    @Test
+    public void shouldFindClosestGapLongEnoughForTheWholeStay() {
+        // given
+        var index = new RoomOccupancyIndex(reservationRepository, roomRepository, fixedClock("2023-01-01T10:30:00.00Z"));
+        index.occupy(1L, LocalDate.of(2023, 1, 5), LocalDate.of(2023, 1, 6));
+        index.occupy(1L, LocalDate.of(2023, 1, 9), LocalDate.of(2023, 1, 10));
+        index.occupy(1L, LocalDate.of(2023, 1, 13), LocalDate.of(2023, 1, 13));
+
+        // when
+        LocalDate twoDaysStart = index.findClosestFreeStart(1L, LocalDate.of(2023, 1, 5), 2);
+        LocalDate threeDaysStart = index.findClosestFreeStart(1L, LocalDate.of(2023, 1, 5), 3);
+
+        // then
+        then(twoDaysStart).isEqualTo(LocalDate.of(2023, 1, 7));
+        then(threeDaysStart).isEqualTo(LocalDate.of(2023, 1, 14));
+        then(index.isFree(1L, LocalDate.of(2023, 1, 7), LocalDate.of(2023, 1, 8))).isTrue();
+        then(index.isFree(1L, LocalDate.of(2023, 1, 7), LocalDate.of(2023, 1, 9))).isFalse();
+    }
+
+    @Test
+    public void shouldTreatDaysAfterTheWindowAsFree() {
+        // given
+        var index = new RoomOccupancyIndex(reservationRepository, roomRepository, fixedClock("2023-01-01T10:30:00.00Z"));
+        LocalDate lastWindowDay = LocalDate.of(2023, 1, 1).plusDays(RoomOccupancyIndex.WINDOW_DAYS - 1);
+        index.occupy(1L, lastWindowDay.minusDays(3), lastWindowDay.minusDays(1));
+
+        // when
+        LocalDate closestStart = index.findClosestFreeStart(1L, lastWindowDay.minusDays(3), 3);
+
+        // then
+        then(closestStart).isEqualTo(lastWindowDay);
+        then(index.covers(lastWindowDay, lastWindowDay.plusDays(1))).isFalse();
+    }
+
+    @Test
+    public void shouldHoldTheFirstAndLastDaysOfTheWindow() {
+        // given
+        var index = new RoomOccupancyIndex(reservationRepository, roomRepository, fixedClock("2023-01-01T10:30:00.00Z"));
+        LocalDate lastWindowDay = LocalDate.of(2023, 1, 1).plusDays(RoomOccupancyIndex.WINDOW_DAYS - 1);
+        index.occupy(1L, LocalDate.of(2023, 1, 1), lastWindowDay);
+
+        // when
+        boolean firstDayClaimed = index.tryOccupy(1L, LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 1));
+        boolean lastDayClaimed = index.tryOccupy(1L, lastWindowDay, lastWindowDay);
+
+        // then
+        then(firstDayClaimed).isFalse();
+        then(lastDayClaimed).isFalse();
+        then(index.isFree(2L, LocalDate.of(2023, 1, 1), lastWindowDay)).isTrue();
+    }
+
+    @Test
+    public void shouldNotOccupyDaysThatAreAlreadyTaken() {
+        // given
+        var index = new RoomOccupancyIndex(reservationRepository, roomRepository, fixedClock("2023-01-01T10:30:00.00Z"));
+        index.occupy(1L, LocalDate.of(2023, 1, 5), LocalDate.of(2023, 1, 7));
+
+        // when
+        boolean overlapping = index.tryOccupy(1L, LocalDate.of(2023, 1, 7), LocalDate.of(2023, 1, 9));
+        boolean adjacent = index.tryOccupy(1L, LocalDate.of(2023, 1, 8), LocalDate.of(2023, 1, 9));
+
+        // then
+        then(overlapping).isFalse();
+        then(adjacent).isTrue();
+        then(index.isFree(1L, LocalDate.of(2023, 1, 9), LocalDate.of(2023, 1, 9))).isFalse();
+    }
+
+    @Test
+    public void shouldMoveAReservationOverItsOwnDays() {
+        // given
+        var index = new RoomOccupancyIndex(reservationRepository, roomRepository, fixedClock("2023-01-01T10:30:00.00Z"));
+        index.occupy(1L, LocalDate.of(2023, 1, 5), LocalDate.of(2023, 1, 7));
+
+        // when
+        boolean claimed = index.tryOccupyExcluding(1L, LocalDate.of(2023, 1, 6), LocalDate.of(2023, 1, 8),
+                LocalDate.of(2023, 1, 5), LocalDate.of(2023, 1, 7));
+        index.releaseExcluding(1L, LocalDate.of(2023, 1, 5), LocalDate.of(2023, 1, 7),
+                LocalDate.of(2023, 1, 6), LocalDate.of(2023, 1, 8));
+
+        // then
+        then(claimed).isTrue();
+        then(index.isFree(1L, LocalDate.of(2023, 1, 5), LocalDate.of(2023, 1, 5))).isTrue();
+        then(index.isFree(1L, LocalDate.of(2023, 1, 6), LocalDate.of(2023, 1, 6))).isFalse();
+        then(index.isFree(1L, LocalDate.of(2023, 1, 8), LocalDate.of(2023, 1, 8))).isFalse();
+    }
+
+    @Test
+    public void shouldKeepReservationsWhenTheWindowWrapsAround() {
+        // given
+        var clock = new MutableClock(Instant.parse("2023-01-01T10:30:00.00Z"));
+        var index = new RoomOccupancyIndex(reservationRepository, roomRepository, clock);
+        index.occupy(1L, LocalDate.of(2023, 1, 2), LocalDate.of(2023, 1, 3));
+        index.occupy(1L, LocalDate.of(2023, 1, 30), LocalDate.of(2023, 2, 1));
+
+        // when
+        clock.instant = Instant.parse("2023-01-29T10:30:00.00Z");
+        index.occupy(1L, LocalDate.of(2023, 3, 5), LocalDate.of(2023, 3, 7));
+
+        // then
+        then(index.isFree(1L, LocalDate.of(2023, 1, 31), LocalDate.of(2023, 1, 31))).isFalse();
+        then(index.isFree(1L, LocalDate.of(2023, 3, 6), LocalDate.of(2023, 3, 6))).isFalse();
+        // 2023-03-07 shares its bit with 2023-01-02, which must have been cleared when the window moved
+        then(index.isFree(1L, LocalDate.of(2023, 3, 8), LocalDate.of(2023, 3, 8))).isTrue();
+        then(index.findClosestFreeStart(1L, LocalDate.of(2023, 3, 5), 1)).isEqualTo(LocalDate.of(2023, 3, 8));
+    }
+
+    @Test
+    public void shouldUpdateClosestStartsWhenReservationsChange() {
+        // given
+        var clock = new MutableClock(Instant.parse("2023-01-01T10:30:00.00Z"));
+        var index = new RoomOccupancyIndex(reservationRepository, roomRepository, clock);
+        index.occupy(1L, LocalDate.of(2023, 1, 2), LocalDate.of(2023, 1, 3));
+        index.occupy(1L, LocalDate.of(2023, 1, 6), LocalDate.of(2023, 1, 6));
+        LocalDate initialStart = index.findClosestFreeStart(1L, LocalDate.of(2023, 1, 2), 3);
+
+        // when
+        index.release(1L, LocalDate.of(2023, 1, 6), LocalDate.of(2023, 1, 6));
+        LocalDate startAfterRelease = index.findClosestFreeStart(1L, LocalDate.of(2023, 1, 2), 3);
+        index.tryOccupy(1L, LocalDate.of(2023, 1, 5), LocalDate.of(2023, 1, 5));
+        LocalDate startAfterOccupy = index.findClosestFreeStart(1L, LocalDate.of(2023, 1, 2), 3);
+        clock.instant = Instant.parse("2023-01-04T10:30:00.00Z");
+        index.release(1L, LocalDate.of(2023, 1, 2), LocalDate.of(2023, 1, 3));
+        LocalDate startAfterWindowMoved = index.findClosestFreeStart(1L, LocalDate.of(2023, 1, 2), 1);
+
+        // then
+        then(initialStart).isEqualTo(LocalDate.of(2023, 1, 7));
+        then(startAfterRelease).isEqualTo(LocalDate.of(2023, 1, 4));
+        then(startAfterOccupy).isEqualTo(LocalDate.of(2023, 1, 6));
+        then(startAfterWindowMoved).isEqualTo(LocalDate.of(2023, 1, 4));
+    }
+
+    private static Clock fixedClock(String clockDateTime) {
+        return Clock.fixed(Instant.parse(clockDateTime), ZoneOffset.UTC);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
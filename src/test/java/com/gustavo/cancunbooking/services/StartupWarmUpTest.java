@@ -0,0 +1,101 @@
+package com.gustavo.cancunbooking.services;
+
+import com.gustavo.cancunbooking.model.ReservationStatusEnum;
+import com.gustavo.cancunbooking.repositories.ReservationRepository;
+import com.gustavo.cancunbooking.repositories.RoomRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class StartupWarmUpTest {
+
+    SimpleMeterRegistry meterRegistry;
+
+    Clock fixedClock;
+
+    RoomOccupancyIndex roomOccupancyIndex;
+
+    @Mock
+    private RoomAvailabilityService roomAvailabilityService;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        fixedClock = Clock.fixed(Instant.parse("2023-01-01T10:30:00.00Z"), ZoneOffset.UTC);
+        meterRegistry = new SimpleMeterRegistry();
+        roomOccupancyIndex = new RoomOccupancyIndex(reservationRepository, roomRepository, fixedClock);
+        roomOccupancyIndex.registerRoom(1L);
+        given(roomRepository.findAllIds()).willReturn(List.of(1L, 2L));
+        given(reservationRepository.streamForExport(any(), any(), any())).willAnswer(invocation -> Stream.empty());
+    }
+
+    @Test
+    public void shouldFillTheRoomCacheAndRunTheMinimumRoundsWhenTheTargetIsMet() {
+        // given
+        var startupWarmUp = startupWarmUp(Duration.ofHours(1), Duration.ofHours(1));
+
+        // when
+        int rounds = startupWarmUp.warmUp();
+
+        // then
+        then(rounds).isEqualTo(3);
+        verify(roomRepository).findById(1L);
+        verify(roomRepository).findById(2L);
+        verify(roomAvailabilityService, times(3)).getRoomAvailability(LocalDate.of(2023, 1, 2), LocalDate.of(2023, 1, 4), 1L);
+        verify(roomAvailabilityService, times(3)).searchAvailability(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3));
+        verify(reservationRepository, times(3)).findHistoryOfUser(0L, Limit.of(1));
+        verify(reservationRepository, times(3)).findHistoryOfUserAfter(0L, LocalDate.of(2024, 1, 1), Long.MAX_VALUE, Limit.of(1));
+        verify(reservationRepository, times(3)).streamForExport(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3), EnumSet.allOf(ReservationStatusEnum.class));
+        then(meterRegistry.get(StartupWarmUp.WARMUP_METRIC).timeGauge().value(TimeUnit.MILLISECONDS)).isNotNaN();
+        then(meterRegistry.get(StartupWarmUp.FIRST_GOOD_P99_METRIC).timeGauge().value(TimeUnit.MILLISECONDS)).isPositive();
+    }
+
+    @Test
+    public void shouldStopAtTheTimeoutWhenTheTargetIsNeverMet() {
+        // given
+        var startupWarmUp = startupWarmUp(Duration.ofNanos(-1), Duration.ofMillis(50));
+
+        // when
+        int rounds = startupWarmUp.warmUp();
+
+        // then
+        then(rounds).isGreaterThanOrEqualTo(1);
+        then(meterRegistry.get(StartupWarmUp.WARMUP_METRIC).timeGauge().value(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50);
+        then(meterRegistry.get(StartupWarmUp.FIRST_GOOD_P99_METRIC).timeGauge().value(TimeUnit.MILLISECONDS)).isNaN();
+    }
+
+    private StartupWarmUp startupWarmUp(Duration targetP99, Duration timeout) {
+        return new StartupWarmUp(roomOccupancyIndex, roomAvailabilityService, reservationRepository, roomRepository,
+                transactionManager, fixedClock, meterRegistry, 3, targetP99, timeout);
+    }
+}
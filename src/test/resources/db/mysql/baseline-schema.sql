@@ -0,0 +1,34 @@
+-- the schema the first version of the application generated with spring.jpa.hibernate.ddl-auto=create on MySQL
+
+create table reservation (
+    end_date date not null,
+    start_date date not null,
+    id bigint not null auto_increment,
+    room_id bigint not null,
+    user_id bigint not null,
+    status enum ('ACTIVE','CANCELLED','FINISHED') not null,
+    primary key (id)
+);
+
+create table room (
+    number integer not null,
+    id bigint not null auto_increment,
+    primary key (id)
+);
+
+create table users (
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    name varchar(255) not null,
+    primary key (id)
+);
+
+alter table reservation add constraint UK_uiis842vpqkfw6wed0ew4scw unique (room_id);
+alter table room add constraint UK_36mkgyjf7t5hsxx4vtp89i9ey unique (number);
+alter table users add constraint UK_6dotkott2kjsp8vw4d0m25fb7 unique (email);
+alter table reservation add constraint FKm8xumi0g23038cw32oiva2ymw foreign key (room_id) references room (id);
+alter table reservation add constraint FKrea93581tgkq61mdl13hehami foreign key (user_id) references users (id);
+
+insert into users(email, name) values ('user@email.com', 'User');
+insert into room(number) values (404);
+insert into reservation(start_date, end_date, user_id, room_id, status) values ('2024-01-10', '2024-01-12', 1, 1, 'FINISHED');